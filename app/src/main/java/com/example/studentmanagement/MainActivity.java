@@ -2,6 +2,7 @@ package com.example.studentmanagement;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -24,6 +25,10 @@ import com.example.studentmanagement.fragments.LoginHistoryFragment;
 import com.example.studentmanagement.fragments.StudentFragment;
 import com.example.studentmanagement.fragments.UserDetailFragment;
 import com.example.studentmanagement.fragments.UserFragment;
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.repository.Repositories;
+import com.example.studentmanagement.utils.LoginHistoryBackfill;
+import com.example.studentmanagement.utils.StudentSearchKeyBackfill;
 import com.google.android.material.navigation.NavigationView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
@@ -32,12 +37,12 @@ import com.google.firebase.firestore.FirebaseFirestore;
 import de.hdodenhof.circleimageview.CircleImageView;
 
 public class MainActivity extends AppCompatActivity implements NavigationView.OnNavigationItemSelectedListener {
+    private static final String TAG = "MainActivity";
 
     private DrawerLayout drawerLayout;
     private NavigationView navigationView;
     private Toolbar toolbar;
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
     private String userRole = "";
 
     @Override
@@ -47,7 +52,6 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
 
         // Initialize Firebase
         mAuth = FirebaseAuth.getInstance();
-        db = FirebaseFirestore.getInstance();
 
         // Set up UI components
         toolbar = findViewById(R.id.toolbar);
@@ -79,11 +83,10 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
 
     private void getUserRoleAndUpdateNavigation(Bundle savedInstanceState) {
         String userId = mAuth.getCurrentUser().getUid();
-        db.collection("users").document(userId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        userRole = documentSnapshot.getString("role");
+        Repositories.users().fetch(userId)
+                .addOnSuccessListener(user -> {
+                    if (user != null) {
+                        userRole = user.getRole();
                         if (userRole == null) userRole = "employee"; // Default role
 
                         // Update navigation header
@@ -92,6 +95,15 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
                         // Configure menu items based on user role
                         updateMenuItemsByRole();
 
+                        // Only roles that may write students can store their search keys
+                        if ("admin".equals(userRole) || "manager".equals(userRole)) {
+                            new StudentSearchKeyBackfill(MainActivity.this, FirebaseFirestore.getInstance()).runOnce();
+                        }
+                        // Only admins see everyone's login history
+                        if ("admin".equals(userRole)) {
+                            new LoginHistoryBackfill(MainActivity.this, FirebaseFirestore.getInstance()).runOnce();
+                        }
+
                         // Load default fragment
                         if (savedInstanceState == null) {
                             loadFragment(new DashboardFragment());
@@ -141,16 +153,15 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser != null) {
             // Fetch additional user data from Firestore
-            db.collection("users").document(currentUser.getUid())
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            String name = documentSnapshot.getString("name");
+            Repositories.users().fetch(currentUser.getUid())
+                    .addOnSuccessListener(user -> {
+                        if (user != null) {
+                            String name = user.getFullName();
                             tvName.setText(name != null ? name : getString(R.string.app_name));
                             tvEmail.setText(currentUser.getEmail());
 
                             // Load profile image if available
-                            String photoUrl = documentSnapshot.getString("photoUrl");
+                            String photoUrl = user.getPhotoUrl();
                             if (photoUrl != null && !photoUrl.isEmpty() && ivProfile != null) {
                                 // Use Glide to load the image
                                 Glide.with(MainActivity.this)
@@ -237,4 +248,10 @@ public class MainActivity extends AppCompatActivity implements NavigationView.On
             super.onBackPressed();
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        Log.d(TAG, "Firestore reads: " + FirestoreReadPolicy.get().getMetricsSummary());
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.studentmanagement;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+
+/**
+ * Configures Firestore before any screen uses it. Settings can only be applied
+ * before the first read or write.
+ */
+public class StudentManagementApp extends Application {
+    private static final String TAG = "StudentManagementApp";
+
+    // Room for the roster, certificates and users; Firestore evicts older documents above this
+    public static final long FIRESTORE_CACHE_SIZE_BYTES = 200L * 1024 * 1024;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(FIRESTORE_CACHE_SIZE_BYTES)
+                        .build())
+                .build();
+        FirebaseFirestore.getInstance().setFirestoreSettings(settings);
+        Log.d(TAG, "Firestore persistent cache set to " + FIRESTORE_CACHE_SIZE_BYTES / (1024 * 1024) + " MB");
+    }
+}
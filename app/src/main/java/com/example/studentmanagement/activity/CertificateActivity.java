@@ -12,6 +12,7 @@ import android.widget.Toast;
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.ActionBar;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -22,11 +23,16 @@ import com.example.studentmanagement.R;
 import com.example.studentmanagement.adapters.CertificateAdapter;
 import com.example.studentmanagement.dialog.CertificateDialog;
 import com.example.studentmanagement.dialog.CertificateImportExportDialog;
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.helpers.SnapshotDeltas;
 import com.example.studentmanagement.models.Certificate;
 import com.example.studentmanagement.models.Student;
+import com.example.studentmanagement.repository.CertificateRepository;
+import com.example.studentmanagement.repository.Repositories;
+import com.example.studentmanagement.repository.Repository;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -39,8 +45,8 @@ public class CertificateActivity extends AppCompatActivity implements Certificat
     private TextView tvStudentName;
     private CertificateAdapter certificateAdapter;
     private List<Certificate> certificateList;
+    private ListenerRegistration certificatesRegistration;
 
-    private FirebaseFirestore db;
     private String studentId;
     private Student currentStudent;
 
@@ -70,9 +76,6 @@ public class CertificateActivity extends AppCompatActivity implements Certificat
             actionBar.setTitle("Certificates");
         }
 
-        // Initialize Firebase
-        db = FirebaseFirestore.getInstance();
-
         // Initialize UI components
         initViews();
 
@@ -178,7 +181,7 @@ public class CertificateActivity extends AppCompatActivity implements Certificat
                 new CertificateImportExportDialog.ImportExportListener() {
                     @Override
                     public void onImportCompleted() {
-                        // Refresh the list after import
+                        // Imported certificates arrive through the listener
                         refreshCertificateList();
                     }
 
@@ -195,53 +198,73 @@ public class CertificateActivity extends AppCompatActivity implements Certificat
     }
 
     private void loadStudentInfo() {
-        db.collection("students").document(studentId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        currentStudent = documentSnapshot.toObject(Student.class);
-                        if (currentStudent != null) {
-                            currentStudent.setId(documentSnapshot.getId());
-                            tvStudentName.setText(currentStudent.getName());
-                        }
-                    } else {
-                        Toast.makeText(this, "Student not found", Toast.LENGTH_SHORT).show();
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Error loading student data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+        // Cached student first, then the server's copy
+        Repositories.students().get(studentId, new Repository.Callback<Student>() {
+            @Override
+            public void onResult(@Nullable Student student, boolean fromCache) {
+                if (student != null) {
+                    currentStudent = student;
+                    tvStudentName.setText(currentStudent.getName());
+                } else {
+                    Toast.makeText(CertificateActivity.this, "Student not found", Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onError(@NonNull Exception e, boolean hadCachedResult) {
+                if (!hadCachedResult) {
+                    Toast.makeText(CertificateActivity.this, "Error loading student data: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
 
     private void loadCertificatesForStudent() {
         swipeRefreshLayout.setRefreshing(true);
-        certificateList.clear();
-
-        Log.d("CertificateActivity", "Loading certificates for student: " + studentId);
-
-        db.collection("certificates")
-                .whereEqualTo("studentId", studentId)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    Log.d("CertificateActivity", "Found " + queryDocumentSnapshots.size() + " certificates");
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Certificate certificate = document.toObject(Certificate.class);
-                        certificate.setId(document.getId());
-                        certificateList.add(certificate);
+
+        Log.d("CertificateActivity", "Listening to certificates for student: " + studentId);
+
+        // One listener for the screen; later changes arrive as deltas instead of reloads
+        CertificateRepository certificates = Repositories.certificates();
+        certificatesRegistration = certificates.listenByStudent(studentId,
+                new FirestoreReadPolicy.SnapshotCallback() {
+                    @Override
+                    public void onSnapshot(@NonNull QuerySnapshot snapshot, boolean reset) {
+                        SnapshotDeltas.apply(snapshot, reset, certificateList,
+                                certificates::toModel, Certificate::getId, certificateAdapter);
+                        Log.d("CertificateActivity", snapshot.getDocumentChanges().size() + " certificate changes, list size: "
+                                + certificateList.size() + (snapshot.getMetadata().isFromCache() ? " (cache)" : ""));
+                        if (!snapshot.getMetadata().isFromCache()) {
+                            swipeRefreshLayout.setRefreshing(false);
+                        }
+                    }
+
+                    @Override
+                    public void onError(@NonNull Exception e) {
+                        Log.e("CertificateActivity", "Error loading certificates: " + e.getMessage());
+                        certificatesRegistration = null;
+                        Toast.makeText(CertificateActivity.this, "Error loading certificates: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                        swipeRefreshLayout.setRefreshing(false);
                     }
-                    certificateAdapter.notifyDataSetChanged();
-                    Log.d("CertificateActivity", "Final list size: " + certificateList.size());
-                    swipeRefreshLayout.setRefreshing(false);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("CertificateActivity", "Error loading certificates: " + e.getMessage());
-                    Toast.makeText(this, "Error loading certificates: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    swipeRefreshLayout.setRefreshing(false);
                 });
     }
 
     private void refreshCertificateList() {
-        loadCertificatesForStudent();
+        if (certificatesRegistration != null) {
+            // The listener already keeps the list current
+            swipeRefreshLayout.setRefreshing(false);
+        } else {
+            loadCertificatesForStudent();
+        }
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (certificatesRegistration != null) {
+            certificatesRegistration.remove();
+            certificatesRegistration = null;
+        }
     }
 
     private void showAddCertificateDialog() {
@@ -253,8 +276,7 @@ public class CertificateActivity extends AppCompatActivity implements Certificat
                 if ("employee".equals(userRole)) {
                     return;
                 }
-                certificateList.add(certificate);
-                certificateAdapter.notifyItemInserted(certificateList.size() - 1);
+                SnapshotDeltas.upsert(certificateList, certificate, Certificate::getId, certificateAdapter);
             }
 
             @Override
@@ -281,8 +303,7 @@ public class CertificateActivity extends AppCompatActivity implements Certificat
             public void onCertificateUpdated(Certificate updatedCertificate) {
                 // Certificate is already updated in Firestore by the dialog
                 // Just update our local list
-                certificateList.set(position, updatedCertificate);
-                certificateAdapter.notifyItemChanged(position);
+                SnapshotDeltas.upsert(certificateList, updatedCertificate, Certificate::getId, certificateAdapter);
             }
 
             @Override
@@ -294,11 +315,9 @@ public class CertificateActivity extends AppCompatActivity implements Certificat
     }
 
     private void deleteCertificate(Certificate certificate, int position) {
-        db.collection("certificates").document(certificate.getId())
-                .delete()
+        Repositories.certificates().delete(certificate.getId())
                 .addOnSuccessListener(aVoid -> {
-                    certificateList.remove(position);
-                    certificateAdapter.notifyItemRemoved(position);
+                    SnapshotDeltas.remove(certificateList, certificate.getId(), Certificate::getId, certificateAdapter);
                     Toast.makeText(this, "Certificate deleted successfully", Toast.LENGTH_SHORT).show();
                 })
                 .addOnFailureListener(e -> {
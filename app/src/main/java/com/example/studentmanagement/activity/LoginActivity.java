@@ -15,14 +15,10 @@ import com.example.studentmanagement.MainActivity;
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.models.LoginHistory;
 import com.example.studentmanagement.models.User;
+import com.example.studentmanagement.repository.Repositories;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
-
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 public class LoginActivity extends AppCompatActivity {
 
@@ -33,7 +29,6 @@ public class LoginActivity extends AppCompatActivity {
     private Button btnLogin;
     private ProgressBar progressBar;
     private FirebaseAuth mAuth;
-    private FirebaseFirestore db;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -43,9 +38,6 @@ public class LoginActivity extends AppCompatActivity {
         // Initialize Firebase Auth
         mAuth = FirebaseAuth.getInstance();
 
-        // Initialize Firestore
-        db = FirebaseFirestore.getInstance();
-
         // Initialize views
         tilEmail = findViewById(R.id.til_email);
         tilPassword = findViewById(R.id.til_password);
@@ -128,12 +120,10 @@ public class LoginActivity extends AppCompatActivity {
                         String userEmail = mAuth.getCurrentUser().getEmail();
 
                         // Check if user exists in database and verify access
-                        db.collection("users").document(userId)
-                                .get()
-                                .addOnSuccessListener(documentSnapshot -> {
-                                    if (documentSnapshot.exists()) {
-                                        User user = documentSnapshot.toObject(User.class);
-                                        if (user != null && user.isLocked()) {
+                        Repositories.users().fetch(userId)
+                                .addOnSuccessListener(user -> {
+                                    if (user != null) {
+                                        if (user.isLocked()) {
                                             // Account is locked
                                             showProgress(false);
                                             mAuth.signOut();
@@ -172,8 +162,7 @@ public class LoginActivity extends AppCompatActivity {
                                         newUser.setLocked(false);
                                         newUser.setId(userId);
 
-                                        db.collection("users").document(userId)
-                                                .set(newUser)
+                                        Repositories.users().set(newUser)
                                                 .addOnSuccessListener(aVoid -> {
                                                     // User created successfully
                                                     recordLoginHistory(true);
@@ -218,8 +207,7 @@ public class LoginActivity extends AppCompatActivity {
                                     newUser.setLocked(false);
                                     newUser.setId(userId);
 
-                                    db.collection("users").document(userId)
-                                            .set(newUser)
+                                    Repositories.users().set(newUser)
                                             .addOnSuccessListener(aVoid -> {
                                                 // Make sure to record login history before proceeding
                                                 recordLoginHistory(true);
@@ -258,8 +246,7 @@ public class LoginActivity extends AppCompatActivity {
                                             adminUser.setLocked(false);
                                             adminUser.setId(userId);
 
-                                            db.collection("users").document(userId)
-                                                    .set(adminUser)
+                                            Repositories.users().set(adminUser)
                                                     .addOnSuccessListener(aVoid -> {
                                                         recordLoginHistory(true);
                                                         showProgress(false);
@@ -304,27 +291,22 @@ public class LoginActivity extends AppCompatActivity {
         String userId = isSuccessful && mAuth.getCurrentUser() != null ?
                 mAuth.getCurrentUser().getUid() : "unknown";
 
-        // Create login history record
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
-        String loginDate = sdf.format(new Date());
-
         // Get device info
         String deviceInfo = Build.MANUFACTURER + " " + Build.MODEL + ", Android " + Build.VERSION.RELEASE;
 
         // Create login history object
         LoginHistory loginHistory = new LoginHistory(
                 userId,
-                loginDate,
+                System.currentTimeMillis(),
                 "Device Login", // Placeholder for IP address
                 deviceInfo,
                 isSuccessful
         );
 
         // Save login history to Firestore
-        db.collection("loginHistory")
-                .add(loginHistory.toMap())
-                .addOnSuccessListener(documentReference -> {
-                    Log.d(TAG, "Login history recorded with ID: " + documentReference.getId());
+        Repositories.loginHistory().add(loginHistory)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Login history recorded with ID: " + loginHistory.getId());
                 })
                 .addOnFailureListener(e -> {
                     Log.w(TAG, "Error adding login history", e);
@@ -17,8 +17,8 @@ import com.example.studentmanagement.R;
 import com.example.studentmanagement.activity.CertificateActivity;
 import com.example.studentmanagement.dialog.StudentDialog;
 import com.example.studentmanagement.models.Student;
+import com.example.studentmanagement.repository.Repositories;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 public class StudentDetailActivity extends AppCompatActivity {
 
@@ -27,7 +27,6 @@ public class StudentDetailActivity extends AppCompatActivity {
     private FloatingActionButton fabEditStudent;
     private SwipeRefreshLayout swipeRefreshLayout;
 
-    private FirebaseFirestore db;
     private String studentId;
     private Student currentStudent;
     private String userRole = "employee";
@@ -57,9 +56,6 @@ public class StudentDetailActivity extends AppCompatActivity {
             return;
         }
 
-        // Initialize Firebase
-        db = FirebaseFirestore.getInstance();
-
         // Initialize views
         initViews();
         updateUIBasedOnPermissions();
@@ -94,15 +90,11 @@ public class StudentDetailActivity extends AppCompatActivity {
     private void loadStudentData() {
         swipeRefreshLayout.setRefreshing(true);
 
-        db.collection("students").document(studentId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        currentStudent = documentSnapshot.toObject(Student.class);
-                        if (currentStudent != null) {
-                            currentStudent.setId(documentSnapshot.getId());
-                            displayStudentInfo(currentStudent);
-                        }
+        Repositories.students().fetch(studentId)
+                .addOnSuccessListener(student -> {
+                    if (student != null) {
+                        currentStudent = student;
+                        displayStudentInfo(currentStudent);
                     } else {
                         Toast.makeText(this, "Student not found", Toast.LENGTH_SHORT).show();
                         finish();
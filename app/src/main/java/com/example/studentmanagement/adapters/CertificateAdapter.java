@@ -10,8 +10,8 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.studentmanagement.R;
+import com.example.studentmanagement.helpers.DocumentFieldResolver;
 import com.example.studentmanagement.models.Certificate;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.List;
 
@@ -20,6 +20,7 @@ public class CertificateAdapter extends RecyclerView.Adapter<CertificateAdapter.
     private List<Certificate> certificateList;
     private OnCertificateClickListener listener;
     private String userRole = "employee"; // Default role
+    private final DocumentFieldResolver studentNameResolver = DocumentFieldResolver.getStudentNameResolver();
 
     public void setUserRole(String userRole) {
         this.userRole = userRole;
@@ -45,6 +46,7 @@ public class CertificateAdapter extends RecyclerView.Adapter<CertificateAdapter.
     @Override
     public void onBindViewHolder(@NonNull CertificateViewHolder holder, int position) {
         Certificate certificate = certificateList.get(position);
+        holder.boundCertificate = certificate;
         holder.tvCertificateName.setText(certificate.getCertificateName());
         holder.tvIssuingAuthority.setText(certificate.getIssuingAuthority());
         holder.tvIssueDate.setText("Issued: " + certificate.getIssueDate());
@@ -52,9 +54,9 @@ public class CertificateAdapter extends RecyclerView.Adapter<CertificateAdapter.
         // Initialize with ID in case fetching the name fails
         holder.tvStudentId.setText("Student: " + certificate.getStudentId());
 
-        // Fetch student name from Firestore
+        // Resolve the student name through the shared cached/batched resolver
         String studentId = certificate.getStudentId();
-        fetchStudentName(studentId, holder.tvStudentId);
+        fetchStudentName(studentId, holder, certificate);
 
         holder.itemView.setOnClickListener(v -> {
             if (listener != null) {
@@ -69,31 +71,23 @@ public class CertificateAdapter extends RecyclerView.Adapter<CertificateAdapter.
         });
         holder.btnDelete.setVisibility(canDelete() ? View.VISIBLE : View.GONE);
     }
-    private void fetchStudentName(String studentId, final TextView textView) {
+    private void fetchStudentName(String studentId, final CertificateViewHolder holder, final Certificate certificate) {
         if (studentId == null || studentId.isEmpty()) {
-            textView.setText("Student: Unknown");
+            holder.tvStudentId.setText("Student: Unknown");
             return;
         }
 
-        FirebaseFirestore.getInstance().collection("students")
-                .document(studentId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        // Assuming the student document has a "name" field
-                        String studentName = documentSnapshot.getString("name");
-                        if (studentName != null && !studentName.isEmpty()) {
-                            textView.setText("Student: " + studentName);
-                        } else {
-                            textView.setText("Student: " + studentId);
-                        }
-                    } else {
-                        textView.setText("Student: " + studentId);
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    textView.setText("Student: " + studentId);
-                });
+        studentNameResolver.resolve(studentId, (id, studentName) -> {
+            // The holder may have been recycled for another certificate meanwhile
+            if (holder.boundCertificate != certificate) {
+                return;
+            }
+            if (studentName != null) {
+                holder.tvStudentId.setText("Student: " + studentName);
+            } else {
+                holder.tvStudentId.setText("Student: " + studentId);
+            }
+        });
     }
     @Override
     public int getItemCount() {
@@ -105,6 +99,7 @@ public class CertificateAdapter extends RecyclerView.Adapter<CertificateAdapter.
     static class CertificateViewHolder extends RecyclerView.ViewHolder {
         TextView tvCertificateName, tvIssuingAuthority, tvIssueDate, tvStudentId;
         ImageButton btnDelete;
+        Certificate boundCertificate;
 
         public CertificateViewHolder(@NonNull View itemView) {
             super(itemView);
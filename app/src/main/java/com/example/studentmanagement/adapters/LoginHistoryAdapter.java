@@ -9,21 +9,42 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.studentmanagement.R;
+import com.example.studentmanagement.helpers.DocumentFieldResolver;
 import com.example.studentmanagement.models.LoginHistory;
-import com.google.firebase.firestore.FirebaseFirestore;
 
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
-public class LoginHistoryAdapter extends RecyclerView.Adapter<LoginHistoryAdapter.ViewHolder> {
+/**
+ * Login history rows, loaded a page at a time. Binding a row near the end asks the
+ * {@link OnLoadMoreListener} for the next page; a footer row shows while it loads.
+ */
+public class LoginHistoryAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+    // Ask for the next page when a row this close to the end is bound
+    public static final int PREFETCH_DISTANCE = 10;
+
+    private static final int TYPE_ENTRY = 0;
+    private static final int TYPE_LOADING = 1;
 
     private final List<LoginHistory> historyList;
     private boolean isAdmin;
-    private FirebaseFirestore db;
+    private final DocumentFieldResolver userEmailResolver;
+    private OnLoadMoreListener loadMoreListener;
+    private boolean loadingMore = false;
+    // Built once; rows are only bound on the main thread
+    private final DateFormat loginTimeFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.getDefault());
+
+    public interface OnLoadMoreListener {
+        void onLoadMore();
+    }
 
-    public LoginHistoryAdapter(List<LoginHistory> historyList, boolean isAdmin, FirebaseFirestore db) {
+    public LoginHistoryAdapter(List<LoginHistory> historyList, boolean isAdmin, DocumentFieldResolver userEmailResolver) {
         this.historyList = historyList;
         this.isAdmin = isAdmin;
-        this.db = db;
+        this.userEmailResolver = userEmailResolver;
     }
 
     public void setAdmin(boolean admin) {
@@ -31,39 +52,79 @@ public class LoginHistoryAdapter extends RecyclerView.Adapter<LoginHistoryAdapte
         notifyDataSetChanged();
     }
 
+    public void setOnLoadMoreListener(OnLoadMoreListener listener) {
+        this.loadMoreListener = listener;
+    }
+
+    /**
+     * Show or hide the footer row shown while the next page loads
+     */
+    public void setLoadingMore(boolean loading) {
+        if (loading == loadingMore) {
+            return;
+        }
+        loadingMore = loading;
+        if (loading) {
+            notifyItemInserted(historyList.size());
+        } else {
+            notifyItemRemoved(historyList.size());
+        }
+    }
+
+    /**
+     * Add the entries of the next page below the rows already shown
+     */
+    public void appendEntries(List<LoginHistory> entries) {
+        int start = historyList.size();
+        historyList.addAll(entries);
+        notifyItemRangeInserted(start, entries.size());
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return position < historyList.size() ? TYPE_ENTRY : TYPE_LOADING;
+    }
+
     @NonNull
     @Override
-    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_login_history, parent, false);
-        return new ViewHolder(view);
+    public RecyclerView.ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        if (viewType == TYPE_LOADING) {
+            return new LoadingViewHolder(inflater.inflate(R.layout.item_loading_footer, parent, false));
+        }
+        return new ViewHolder(inflater.inflate(R.layout.item_login_history, parent, false));
     }
 
     @Override
-    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder viewHolder, int position) {
+        if (!(viewHolder instanceof ViewHolder)) {
+            return;
+        }
+        ViewHolder holder = (ViewHolder) viewHolder;
         LoginHistory loginHistory = historyList.get(position);
+        holder.boundHistory = loginHistory;
+
+        if (loadMoreListener != null && position >= historyList.size() - PREFETCH_DISTANCE) {
+            loadMoreListener.onLoadMore();
+        }
 
         // Display user ID if admin, otherwise hide it
         if (isAdmin) {
             holder.tvUserId.setVisibility(View.VISIBLE);
             holder.tvUserId.setText("User ID: " + loginHistory.getUserId());
 
-            // Get user email if possible
-            db.collection("users").document(loginHistory.getUserId())
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            String email = documentSnapshot.getString("email");
-                            if (email != null && !email.isEmpty()) {
-                                holder.tvUserId.setText("User: " + email);
-                            }
-                        }
-                    });
+            // Get user email if possible; cached and batched across rows
+            userEmailResolver.resolve(loginHistory.getUserId(), (userId, email) -> {
+                // Ignore results arriving after the holder was recycled
+                if (holder.boundHistory == loginHistory && email != null) {
+                    holder.tvUserId.setText("User: " + email);
+                }
+            });
         } else {
             holder.tvUserId.setVisibility(View.GONE);
         }
 
-        holder.tvDate.setText(loginHistory.getLoginDate());
+        holder.tvDate.setText(formatLoginTime(loginHistory));
         holder.tvDevice.setText(loginHistory.getDeviceInfo());
 
         // Set status indicator
@@ -76,13 +137,22 @@ public class LoginHistoryAdapter extends RecyclerView.Adapter<LoginHistoryAdapte
         }
     }
 
+    // Records not migrated yet still carry the preformatted string
+    private String formatLoginTime(LoginHistory loginHistory) {
+        if (loginHistory.getLoginAt() > 0) {
+            return loginTimeFormat.format(new Date(loginHistory.getLoginAt()));
+        }
+        return loginHistory.getLoginDate();
+    }
+
     @Override
     public int getItemCount() {
-        return historyList.size();
+        return historyList.size() + (loadingMore ? 1 : 0);
     }
 
     public static class ViewHolder extends RecyclerView.ViewHolder {
         TextView tvUserId, tvDate, tvDevice, tvStatus;
+        LoginHistory boundHistory;
 
         ViewHolder(View itemView) {
             super(itemView);
@@ -92,4 +162,10 @@ public class LoginHistoryAdapter extends RecyclerView.Adapter<LoginHistoryAdapte
             tvStatus = itemView.findViewById(R.id.tv_login_status);
         }
     }
-}
\ No newline at end of file
+
+    static class LoadingViewHolder extends RecyclerView.ViewHolder {
+        LoadingViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+}
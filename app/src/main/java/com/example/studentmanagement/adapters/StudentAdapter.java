@@ -7,28 +7,181 @@ import android.widget.ImageButton;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.cardview.widget.CardView;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.models.Student;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
-public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentViewHolder> {
+/**
+ * Student list backed by AsyncListDiffer: submitted lists are diffed on a background
+ * thread and only rows whose displayed fields changed are rebound.
+ * A long press starts selection mode, in which clicks toggle rows for bulk actions.
+ */
+public class StudentAdapter extends ListAdapter<Student, StudentAdapter.StudentViewHolder> {
+
+    // Payload for rebinding only the permission-dependent buttons
+    private static final Object PAYLOAD_PERMISSIONS = new Object();
+    // Payload for rebinding only the selection highlight
+    private static final Object PAYLOAD_SELECTION = new Object();
 
-    private List<Student> studentList;
     private OnStudentClickListener listener;
     private String userRole = "employee"; // Default role
 
-    public StudentAdapter(List<Student> studentList, OnStudentClickListener listener) {
-        this.studentList = studentList;
+    // Document IDs of the selected students, in selection order
+    private final Set<String> selectedIds = new LinkedHashSet<>();
+    private boolean selectionMode = false;
+
+    private static final DiffUtil.ItemCallback<Student> DIFF_CALLBACK = new DiffUtil.ItemCallback<Student>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Student oldItem, @NonNull Student newItem) {
+            return Objects.equals(oldItem.getId(), newItem.getId());
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Student oldItem, @NonNull Student newItem) {
+            // Only the fields shown in item_student matter here
+            return Objects.equals(oldItem.getName(), newItem.getName())
+                    && Objects.equals(oldItem.getStudentId(), newItem.getStudentId())
+                    && Objects.equals(oldItem.getEmail(), newItem.getEmail())
+                    && Objects.equals(oldItem.getClassName(), newItem.getClassName());
+        }
+    };
+
+    public StudentAdapter(OnStudentClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
     }
 
     // Set user role from fragment
     public void setUserRole(String userRole) {
         this.userRole = userRole;
-        notifyDataSetChanged(); // Refresh to update button visibility
+        // Only the edit/delete buttons depend on the role
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_PERMISSIONS);
+    }
+
+    public void removeStudent(String studentId) {
+        List<Student> newList = new ArrayList<>(getCurrentList());
+        for (int i = 0; i < newList.size(); i++) {
+            if (newList.get(i).getId().equals(studentId)) {
+                newList.remove(i);
+                submitList(newList);
+                return;
+            }
+        }
+    }
+
+    // Drop several students with a single diff
+    public void removeStudents(Collection<String> studentIds) {
+        Set<String> removed = new HashSet<>(studentIds);
+        List<Student> newList = new ArrayList<>(getCurrentList().size());
+        for (Student student : getCurrentList()) {
+            if (!removed.contains(student.getId())) {
+                newList.add(student);
+            }
+        }
+        selectedIds.removeAll(removed);
+        submitList(newList);
+    }
+
+    /**
+     * Rebind students that were edited in place, see {@link #refreshStudent(Student)}
+     */
+    public void refreshStudents(Collection<String> studentIds) {
+        Set<String> changed = new HashSet<>(studentIds);
+        List<Student> current = getCurrentList();
+        for (int i = 0; i < current.size(); i++) {
+            if (changed.contains(current.get(i).getId())) {
+                notifyItemChanged(i);
+            }
+        }
+    }
+
+    public boolean isSelectionMode() {
+        return selectionMode;
+    }
+
+    // Enter selection mode with one student selected
+    public void startSelection(Student student) {
+        selectionMode = true;
+        selectedIds.clear();
+        selectedIds.add(student.getId());
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        notifySelectionChanged();
+    }
+
+    public void clearSelection() {
+        selectionMode = false;
+        selectedIds.clear();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    public void selectAll() {
+        for (Student student : getCurrentList()) {
+            selectedIds.add(student.getId());
+        }
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+        notifySelectionChanged();
+    }
+
+    // Selected students still in the list, in selection order
+    public List<Student> getSelectedStudents() {
+        Map<String, Student> byId = new HashMap<>();
+        for (Student student : getCurrentList()) {
+            if (selectedIds.contains(student.getId())) {
+                byId.put(student.getId(), student);
+            }
+        }
+        List<Student> selected = new ArrayList<>(byId.size());
+        for (String id : selectedIds) {
+            Student student = byId.get(id);
+            if (student != null) {
+                selected.add(student);
+            }
+        }
+        return selected;
+    }
+
+    private void toggleSelection(int position) {
+        String id = getItem(position).getId();
+        if (!selectedIds.remove(id)) {
+            selectedIds.add(id);
+        }
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+        notifySelectionChanged();
+    }
+
+    private void notifySelectionChanged() {
+        if (listener != null) {
+            listener.onSelectionChanged(selectedIds.size());
+        }
+    }
+
+    /**
+     * Rebind a student that was edited in place. StudentDialog mutates the instance
+     * held by the list, so the differ cannot see the change by comparing items.
+     */
+    public void refreshStudent(Student student) {
+        List<Student> current = getCurrentList();
+        for (int i = 0; i < current.size(); i++) {
+            if (current.get(i).getId().equals(student.getId())) {
+                notifyItemChanged(i);
+                return;
+            }
+        }
     }
 
     @NonNull
@@ -40,13 +193,18 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
 
     @Override
     public void onBindViewHolder(@NonNull StudentViewHolder holder, int position) {
-        Student student = studentList.get(position);
-        holder.bind(student, position);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return studentList.size();
+    public void onBindViewHolder(@NonNull StudentViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_PERMISSIONS) || payloads.contains(PAYLOAD_SELECTION)) {
+            // Both depend on selection mode, so they are rebound together
+            holder.bindPermissions();
+            holder.bindSelection(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     public class StudentViewHolder extends RecyclerView.ViewHolder {
@@ -61,9 +219,49 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
             tvClass = itemView.findViewById(R.id.tv_student_class);
             btnEdit = itemView.findViewById(R.id.btn_edit);
             btnDelete = itemView.findViewById(R.id.btn_delete);
+
+            // Resolve the position at click time; rows move without being rebound
+            itemView.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (position == RecyclerView.NO_POSITION) {
+                    return;
+                }
+                if (selectionMode) {
+                    toggleSelection(position);
+                } else if (listener != null) {
+                    listener.onStudentClick(getItem(position), position);
+                }
+            });
+
+            itemView.setOnLongClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (listener == null || position == RecyclerView.NO_POSITION) {
+                    return false;
+                }
+                if (selectionMode) {
+                    toggleSelection(position);
+                } else {
+                    listener.onStudentLongClick(getItem(position), position);
+                }
+                return true;
+            });
+
+            btnEdit.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (listener != null && position != RecyclerView.NO_POSITION) {
+                    listener.onEditClick(getItem(position), position);
+                }
+            });
+
+            btnDelete.setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (listener != null && position != RecyclerView.NO_POSITION) {
+                    listener.onDeleteClick(getItem(position), position);
+                }
+            });
         }
 
-        public void bind(Student student, int position) {
+        public void bind(Student student) {
             tvName.setText(student.getName());
             tvStudentId.setText(student.getStudentId());
 
@@ -74,29 +272,20 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
             String className = student.getClassName();
             tvClass.setText(className != null ? className : "N/A");
 
-            // Set click listener for the entire item
-            itemView.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onStudentClick(student, position);
-                }
-            });
-
-            // Show/hide buttons based on permissions
-            btnEdit.setVisibility(canEdit() ? View.VISIBLE : View.GONE);
-            btnDelete.setVisibility(canDelete() ? View.VISIBLE : View.GONE);
+            bindPermissions();
+            bindSelection(student);
+        }
 
-            // Set click listeners for buttons
-            btnEdit.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onEditClick(student, position);
-                }
-            });
+        // Show/hide buttons based on permissions; row buttons are hidden while selecting
+        void bindPermissions() {
+            btnEdit.setVisibility(canEdit() && !selectionMode ? View.VISIBLE : View.GONE);
+            btnDelete.setVisibility(canDelete() && !selectionMode ? View.VISIBLE : View.GONE);
+        }
 
-            btnDelete.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onDeleteClick(student, position);
-                }
-            });
+        void bindSelection(Student student) {
+            boolean selected = selectionMode && selectedIds.contains(student.getId());
+            ((CardView) itemView).setCardBackgroundColor(ContextCompat.getColor(itemView.getContext(),
+                    selected ? R.color.colorSelection : android.R.color.white));
         }
 
         // Permission checks
@@ -113,5 +302,7 @@ public class StudentAdapter extends RecyclerView.Adapter<StudentAdapter.StudentV
         void onStudentClick(Student student, int position);
         void onEditClick(Student student, int position);
         void onDeleteClick(Student student, int position);
+        void onStudentLongClick(Student student, int position);
+        void onSelectionChanged(int selectedCount);
     }
-}
\ No newline at end of file
+}
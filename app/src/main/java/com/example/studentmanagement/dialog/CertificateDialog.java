@@ -12,13 +12,16 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.models.Certificate;
 import com.example.studentmanagement.models.Student;
+import com.example.studentmanagement.repository.CertificateRepository;
+import com.example.studentmanagement.repository.Repositories;
+import com.example.studentmanagement.repository.Repository;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -37,7 +40,7 @@ public class CertificateDialog extends Dialog {
     private Button btnSave, btnCancel;
     private boolean readOnlyMode = false;
 
-    private FirebaseFirestore db;
+    private final CertificateRepository certificates;
     private Calendar calendarIssue = Calendar.getInstance();
     private Calendar calendarExpiry = Calendar.getInstance();
 
@@ -53,7 +56,7 @@ public class CertificateDialog extends Dialog {
         super(context);
         this.certificate = certificate;
         this.listener = listener;
-        db = FirebaseFirestore.getInstance();
+        certificates = Repositories.certificates();
 
         if (context instanceof com.example.studentmanagement.activity.CertificateActivity) {
             preSelectedStudentId = ((com.example.studentmanagement.activity.CertificateActivity) context)
@@ -174,28 +177,24 @@ public class CertificateDialog extends Dialog {
         String studentId = certificate != null ? certificate.getStudentId() : preSelectedStudentId;
 
         if (studentId != null && !studentId.isEmpty()) {
-            db.collection("students")
-                    .document(studentId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            Student student = documentSnapshot.toObject(Student.class);
-                            if (student != null) {
-                                student.setId(documentSnapshot.getId());
-                                tvStudentName.setText("Student: " + student.getName());
-                            } else {
-                                tvStudentName.setText("Student: Unknown");
-                            }
-                        } else {
-                            tvStudentName.setText("Student: Unknown");
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        tvStudentName.setText("Student: Unknown");
-                        Toast.makeText(getContext(),
-                                "Error loading student: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show();
-                    });
+            // Cached name first; the server's answer may follow
+            Repositories.students().get(studentId, new Repository.Callback<Student>() {
+                @Override
+                public void onResult(@Nullable Student student, boolean fromCache) {
+                    tvStudentName.setText(student != null ? "Student: " + student.getName() : "Student: Unknown");
+                }
+
+                @Override
+                public void onError(@NonNull Exception e, boolean hadCachedResult) {
+                    if (hadCachedResult) {
+                        return;
+                    }
+                    tvStudentName.setText("Student: Unknown");
+                    Toast.makeText(getContext(),
+                            "Error loading student: " + e.getMessage(),
+                            Toast.LENGTH_SHORT).show();
+                }
+            });
         } else {
             tvStudentName.setText("Student: Not specified");
         }
@@ -238,16 +237,16 @@ public class CertificateDialog extends Dialog {
             certificate.setDescription(desc);
             certificate.setStudentId(stuDoc);
 
-            db.collection("certificates")
-                    .add(certificate.toMap())
-                    .addOnSuccessListener(ref -> {
-                        certificate.setId(ref.getId());
+            certificates.add(certificate)
+                    .addOnSuccessListener(_v -> {
                         if (listener!=null) listener.onCertificateAdded(certificate);
                         Toast.makeText(getContext(),
                                 "Added", Toast.LENGTH_SHORT).show();
                         dismiss();
                     })
                     .addOnFailureListener(e->{
+                        // Saving again should add, not update a certificate that was never stored
+                        certificate = null;
                         Toast.makeText(getContext(),
                                 "Error: "+e.getMessage(),
                                 Toast.LENGTH_SHORT).show();
@@ -261,8 +260,7 @@ public class CertificateDialog extends Dialog {
             certificate.setDescription(desc);
             certificate.setStudentId(stuDoc);
 
-            db.collection("certificates").document(certificate.getId())
-                    .set(certificate.toMap())
+            certificates.set(certificate)
                     .addOnSuccessListener(_v->{
                         if (listener!=null) listener.onCertificateUpdated(certificate);
                         Toast.makeText(getContext(),
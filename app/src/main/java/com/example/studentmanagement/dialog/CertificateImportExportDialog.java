@@ -1,5 +1,6 @@
 package com.example.studentmanagement.dialog;
 
+import android.app.Activity;
 import android.app.AlertDialog;
 import android.app.ProgressDialog;
 import android.content.Context;
@@ -13,6 +14,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
+import androidx.lifecycle.LifecycleOwner;
 
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.models.Certificate;
@@ -117,16 +119,22 @@ public class CertificateImportExportDialog {
         progressDialog.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
         progressDialog.show();
 
-        CertificateCSVUtils.importCertificatesFromCSV(context, uri, studentId,
+        CertificateCSVUtils.importCertificatesFromCSV(lifecycleOwner(), context, uri, studentId,
                 new CertificateCSVUtils.OnCSVOperationListener() {
                     @Override
                     public void onProgressUpdate(int current, int total) {
+                        if (isHostDestroyed()) {
+                            return;
+                        }
                         progressDialog.setMax(total);
                         progressDialog.setProgress(current);
                     }
 
                     @Override
                     public void onOperationComplete(boolean success, String message) {
+                        if (isHostDestroyed()) {
+                            return;
+                        }
                         progressDialog.dismiss();
                         Toast.makeText(context, message, Toast.LENGTH_LONG).show();
 
@@ -143,16 +151,22 @@ public class CertificateImportExportDialog {
         progressDialog.setMessage("Please wait...");
         progressDialog.show();
 
-        CertificateCSVUtils.exportCertificatesToCSV(context, certificateList, uri,
+        CertificateCSVUtils.exportCertificatesToCSV(lifecycleOwner(), context, certificateList, uri,
                 new CertificateCSVUtils.OnCSVOperationListener() {
                     @Override
                     public void onProgressUpdate(int current, int total) {
+                        if (isHostDestroyed()) {
+                            return;
+                        }
                         progressDialog.setMax(total);
                         progressDialog.setProgress(current);
                     }
 
                     @Override
                     public void onOperationComplete(boolean success, String message) {
+                        if (isHostDestroyed()) {
+                            return;
+                        }
                         progressDialog.dismiss();
                         Toast.makeText(context, message, Toast.LENGTH_LONG).show();
 
@@ -162,4 +176,13 @@ public class CertificateImportExportDialog {
                     }
                 });
     }
-}
\ No newline at end of file
+
+    // Background work is tied to the hosting activity, so it stops when the activity goes away
+    private LifecycleOwner lifecycleOwner() {
+        return context instanceof LifecycleOwner ? (LifecycleOwner) context : null;
+    }
+
+    private boolean isHostDestroyed() {
+        return context instanceof Activity && ((Activity) context).isDestroyed();
+    }
+}
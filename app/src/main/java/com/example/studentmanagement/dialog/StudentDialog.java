@@ -11,12 +11,15 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.example.studentmanagement.R;
+import com.example.studentmanagement.helpers.CascadeDeleteService;
+import com.example.studentmanagement.helpers.DocumentFieldResolver;
 import com.example.studentmanagement.models.Student;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.studentmanagement.repository.Repositories;
+import com.example.studentmanagement.repository.StudentRepository;
+import com.example.studentmanagement.utils.BatchOperationsUtil;
 
 import java.util.Calendar;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
 
 public class StudentDialog {
     private AlertDialog dialog;
@@ -24,7 +27,7 @@ public class StudentDialog {
     private TextView tvDateOfBirth;
     private Button btnSave, btnCancel, btnDelete;
 
-    private FirebaseFirestore db;
+    private final StudentRepository students;
     private Student student;
     private StudentDialogListener listener;
     private Context context;
@@ -39,7 +42,7 @@ public class StudentDialog {
         this.context = context;
         this.student = student;
         this.listener = listener;
-        this.db = FirebaseFirestore.getInstance();
+        this.students = Repositories.students();
 
         init();
     }
@@ -143,22 +146,13 @@ public class StudentDialog {
         student.setDateOfBirth(tvDateOfBirth.getText().toString().trim());
         student.setAddress(etAddress.getText().toString().trim());
 
-        // Prepare data for Firestore
-        Map<String, Object> studentData = new HashMap<>();
-        studentData.put("name", student.getName());
-        studentData.put("studentId", student.getStudentId());
-        studentData.put("email", student.getEmail());
-        studentData.put("phoneNumber", student.getPhoneNumber());
-        studentData.put("className", student.getClassName());
-        studentData.put("dateOfBirth", student.getDateOfBirth());
-        studentData.put("address", student.getAddress());
-
         if (student.getId() != null) {
             // Update existing student
-            db.collection("students").document(student.getId())
-                    .update(studentData)
+            students.update(student.getId(), BatchOperationsUtil.importedFields(student))
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(context, "Student updated successfully", Toast.LENGTH_SHORT).show();
+                        // Keep cached names shown in certificate lists current
+                        DocumentFieldResolver.getStudentNameResolver().put(student.getId(), student.getName());
                         if (listener != null) {
                             listener.onStudentUpdated(student);
                         }
@@ -168,11 +162,9 @@ public class StudentDialog {
                         Toast.makeText(context, "Error updating student: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     });
         } else {
-            // Add new student
-            db.collection("students")
-                    .add(studentData)
-                    .addOnSuccessListener(documentReference -> {
-                        student.setId(documentReference.getId());
+            // Add new student; the repository assigns its ID
+            students.add(student)
+                    .addOnSuccessListener(aVoid -> {
                         Toast.makeText(context, "Student added successfully", Toast.LENGTH_SHORT).show();
                         if (listener != null) {
                             listener.onStudentAdded(student);
@@ -180,6 +172,8 @@ public class StudentDialog {
                         dialog.dismiss();
                     })
                     .addOnFailureListener(e -> {
+                        // Saving again should add, not update a student that was never stored
+                        student.setId(null);
                         Toast.makeText(context, "Error adding student: " + e.getMessage(), Toast.LENGTH_SHORT).show();
                     });
         }
@@ -211,41 +205,31 @@ public class StudentDialog {
                 .setTitle("Delete Student")
                 .setMessage("Are you sure you want to delete this student? This will also delete all their certificates.")
                 .setPositiveButton("Delete", (dialogInterface, i) -> {
-                    // Delete student from Firestore
+                    // Delete the student and its certificates
                     if (student.getId() != null) {
-                        db.collection("students").document(student.getId())
-                                .delete()
-                                .addOnSuccessListener(aVoid -> {
-                                    // Also delete related certificates
-                                    deleteRelatedCertificates();
-
-                                    Toast.makeText(context, "Student deleted successfully", Toast.LENGTH_SHORT).show();
+                        students.deleteWithCertificates(Collections.singletonList(student.getId()), new CascadeDeleteService.Listener() {
+                            @Override
+                            public void onProgress(int deletedStudents, int totalStudents) {
+                                // Deletes usually finish within a few batches
+                            }
+
+                            @Override
+                            public void onComplete(CascadeDeleteService.Result result) {
+                                Toast.makeText(context, result.getMessage(), Toast.LENGTH_SHORT).show();
+                                if (result.isSuccessful()) {
                                     if (listener != null) {
                                         listener.onStudentDeleted(student);
                                     }
                                     dialog.dismiss();
-                                })
-                                .addOnFailureListener(e -> {
-                                    Toast.makeText(context, "Error deleting student: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                                });
+                                }
+                            }
+                        });
                     }
                 })
                 .setNegativeButton("Cancel", null)
                 .show();
     }
 
-    private void deleteRelatedCertificates() {
-        // Delete all certificates associated with this student
-        db.collection("certificates")
-                .whereEqualTo("studentId", student.getId())
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (com.google.firebase.firestore.DocumentSnapshot doc : queryDocumentSnapshots) {
-                        db.collection("certificates").document(doc.getId()).delete();
-                    }
-                });
-    }
-
     public void show() {
         dialog.show();
     }
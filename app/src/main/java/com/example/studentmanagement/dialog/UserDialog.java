@@ -18,10 +18,10 @@ import androidx.annotation.NonNull;
 
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.models.User;
+import com.example.studentmanagement.repository.Repositories;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 public class UserDialog extends Dialog {
 
@@ -189,10 +189,8 @@ public class UserDialog extends Dialog {
                         String uid = authResult.getUser().getUid();
                         user.setId(uid);
 
-                        // Add to Firestore users collection
-                        FirebaseFirestore db = FirebaseFirestore.getInstance();
-                        db.collection("users").document(uid)
-                                .set(user.toMap())
+                        // Store the profile under the account's UID
+                        Repositories.users().set(user)
                                 .addOnSuccessListener(aVoid -> {
                                     if (listener != null) {
                                         listener.onUserAdded(user);
@@ -230,8 +228,6 @@ public class UserDialog extends Dialog {
     }
 
     private void updateUserInFirestore(User user) {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-
         // Check if user ID is null to prevent the crash
         if (user.getId() == null || user.getId().isEmpty()) {
             Toast.makeText(getContext(), "Error: User ID is missing", Toast.LENGTH_SHORT).show();
@@ -240,8 +236,7 @@ public class UserDialog extends Dialog {
         }
 
         // Update user information in Firestore (users collection)
-        db.collection("users").document(user.getId())
-                .set(user.toMap())
+        Repositories.users().set(user)
                 .addOnSuccessListener(aVoid -> Toast.makeText(getContext(), "User updated", Toast.LENGTH_SHORT).show())
                 .addOnFailureListener(e -> {
                     Toast.makeText(getContext(), "Error updating user: " + e.getMessage(), Toast.LENGTH_SHORT).show();
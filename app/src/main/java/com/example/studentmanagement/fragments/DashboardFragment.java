@@ -14,7 +14,10 @@ import androidx.fragment.app.Fragment;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.example.studentmanagement.R;
+import com.example.studentmanagement.helpers.DashboardStatsLoader;
 import com.example.studentmanagement.models.User;
+import com.example.studentmanagement.repository.Repositories;
+import com.example.studentmanagement.repository.Repository;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
 
@@ -25,12 +28,14 @@ import java.util.Locale;
 public class DashboardFragment extends Fragment {
 
     private TextView tvStudentCount, tvUserCount, tvCurrentDate;
+    private TextView tvCertificateCount, tvExpiringCertificateCount;
     private TextView tvWelcomeMessage, tvUserRole;
     private CardView cardStudents, cardUsers, cardProfile;
     private SwipeRefreshLayout swipeRefreshLayout;
 
     private FirebaseFirestore db;
     private FirebaseAuth mAuth;
+    private DashboardStatsLoader statsLoader;
     private String currentUserRole = "";
 
     public DashboardFragment() {
@@ -51,6 +56,7 @@ public class DashboardFragment extends Fragment {
         // Initialize Firebase
         db = FirebaseFirestore.getInstance();
         mAuth = FirebaseAuth.getInstance();
+        statsLoader = new DashboardStatsLoader(requireContext(), db);
 
         // Initialize UI components
         initViews(view);
@@ -69,7 +75,7 @@ public class DashboardFragment extends Fragment {
         loadUserInfo();
 
         // Load dashboard statistics
-        loadDashboardData();
+        loadDashboardData(false);
 
         // Setup card click listeners
         setupCardClickListeners();
@@ -81,6 +87,8 @@ public class DashboardFragment extends Fragment {
     private void initViews(View view) {
         tvStudentCount = view.findViewById(R.id.tv_student_count);
         tvUserCount = view.findViewById(R.id.tv_user_count);
+        tvCertificateCount = view.findViewById(R.id.tv_certificate_count);
+        tvExpiringCertificateCount = view.findViewById(R.id.tv_expiring_certificate_count);
         tvCurrentDate = view.findViewById(R.id.tv_current_date);
         tvWelcomeMessage = view.findViewById(R.id.tv_welcome_message);
         tvUserRole = view.findViewById(R.id.tv_user_role);
@@ -96,32 +104,38 @@ public class DashboardFragment extends Fragment {
         if (mAuth.getCurrentUser() != null) {
             String userId = mAuth.getCurrentUser().getUid();
 
-            db.collection("users").document(userId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists()) {
-                            User user = documentSnapshot.toObject(User.class);
-                            if (user != null) {
-                                String welcomeText = "Welcome, " + user.getFullName() + "!";
-                                tvWelcomeMessage.setText(welcomeText);
-
-                                // Get user role (use the one passed from arguments if available)
-                                if (currentUserRole.isEmpty()) {
-                                    currentUserRole = user.getRole();
-                                }
-
-                                // Display role with first letter capitalized
-                                tvUserRole.setText(currentUserRole.substring(0, 1).toUpperCase() +
-                                        currentUserRole.substring(1).toLowerCase());
-
-                                // Configure dashboard based on role
-                                configureUIBasedOnRole();
-                            }
+            // Cached profile first so the greeting shows without waiting for the network
+            Repositories.users().get(userId, new Repository.Callback<User>() {
+                @Override
+                public void onResult(@Nullable User user, boolean fromCache) {
+                    if (!isAdded()) {
+                        return;
+                    }
+                    if (user != null) {
+                        String welcomeText = "Welcome, " + user.getFullName() + "!";
+                        tvWelcomeMessage.setText(welcomeText);
+
+                        // Get user role (use the one passed from arguments if available)
+                        if (currentUserRole.isEmpty()) {
+                            currentUserRole = user.getRole();
                         }
-                    })
-                    .addOnFailureListener(e -> {
+
+                        // Display role with first letter capitalized
+                        tvUserRole.setText(currentUserRole.substring(0, 1).toUpperCase() +
+                                currentUserRole.substring(1).toLowerCase());
+
+                        // Configure dashboard based on role
+                        configureUIBasedOnRole();
+                    }
+                }
+
+                @Override
+                public void onError(@NonNull Exception e, boolean hadCachedResult) {
+                    if (isAdded() && !hadCachedResult) {
                         Toast.makeText(getContext(), "Error loading user info", Toast.LENGTH_SHORT).show();
-                    });
+                    }
+                }
+            });
         }
     }
 
@@ -149,34 +163,38 @@ public class DashboardFragment extends Fragment {
         }
     }
 
-    private void loadDashboardData() {
-        // Load Students Count for all roles
-        db.collection("students")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    int count = queryDocumentSnapshots.size();
-                    tvStudentCount.setText(String.valueOf(count));
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(getContext(), "Error loading student data", Toast.LENGTH_SHORT).show();
-                });
+    private void loadDashboardData(boolean forceRefresh) {
+        // Counts are aggregated on the server and cached locally for a few minutes
+        loadStat(DashboardStatsLoader.STAT_STUDENTS, tvStudentCount, forceRefresh, "Error loading student data");
+        loadStat(DashboardStatsLoader.STAT_CERTIFICATES, tvCertificateCount, forceRefresh, "Error loading certificate data");
+        loadStat(DashboardStatsLoader.STAT_EXPIRING_CERTIFICATES, tvExpiringCertificateCount, forceRefresh, "Error loading certificate data");
 
         // Load Users Count (for admin only)
         if ("admin".equalsIgnoreCase(currentUserRole)) {
-            db.collection("users")
-                    .get()
-                    .addOnSuccessListener(queryDocumentSnapshots -> {
-                        int count = queryDocumentSnapshots.size();
-                        tvUserCount.setText(String.valueOf(count));
-                    })
-                    .addOnFailureListener(e -> {
-                        Toast.makeText(getContext(), "Error loading user data", Toast.LENGTH_SHORT).show();
-                    });
+            loadStat(DashboardStatsLoader.STAT_USERS, tvUserCount, forceRefresh, "Error loading user data");
         } else {
             tvUserCount.setText("N/A");
         }
     }
 
+    private void loadStat(String stat, TextView target, boolean forceRefresh, String errorMessage) {
+        statsLoader.load(stat, forceRefresh, new DashboardStatsLoader.StatsListener() {
+            @Override
+            public void onStatLoaded(String stat, long count, boolean fromCache) {
+                if (isAdded()) {
+                    target.setText(String.valueOf(count));
+                }
+            }
+
+            @Override
+            public void onStatError(String stat, Exception e) {
+                if (isAdded()) {
+                    Toast.makeText(getContext(), errorMessage, Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
     private void setupCardClickListeners() {
         cardStudents.setOnClickListener(v -> {
             // Navigate to Students Fragment with user role
@@ -217,7 +235,7 @@ public class DashboardFragment extends Fragment {
     private void refreshDashboard() {
         // Reload user info and dashboard statistics
         loadUserInfo();
-        loadDashboardData();
+        loadDashboardData(true);
 
         // Stop the refreshing animation
         swipeRefreshLayout.setRefreshing(false);
@@ -1,10 +1,12 @@
 package com.example.studentmanagement.fragments;
 
+import android.app.DatePickerDialog;
 import android.os.Bundle;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.Button;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -17,27 +19,63 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.adapters.LoginHistoryAdapter;
+import com.example.studentmanagement.helpers.DocumentFieldResolver;
 import com.example.studentmanagement.models.LoginHistory;
+import com.example.studentmanagement.repository.LoginHistoryRepository;
+import com.example.studentmanagement.repository.Repositories;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 
 public class LoginHistoryFragment extends Fragment {
 
     private static final String TAG = "LoginHistoryFragment";
+    // User emails rarely change; re-read them after this long
+    private static final long USER_EMAIL_TTL_MS = 10 * 60 * 1000;
+    private static final int USER_EMAIL_CACHE_SIZE = 200;
+    // Entries read per request; the first page fills a screen or two
+    private static final int PAGE_SIZE = 30;
 
     private RecyclerView recyclerView;
     private ProgressBar progressBar;
     private TextView emptyView;
+    private Button btnFilterFrom;
+    private Button btnFilterTo;
+    private Button btnFilterClear;
     private LoginHistoryAdapter adapter;
-    private FirebaseFirestore db;
     private FirebaseAuth mAuth;
     private List<LoginHistory> loginHistoryList;
     private boolean isAdmin = false;
+    private final SimpleDateFormat filterDateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
+
+    // Date range filter: first day included and day after the last one, or null if open
+    private Date filterFrom;
+    private Date filterTo;
+    private LoginHistoryRepository.Cursor nextPageCursor;
+    private boolean loadingPage = false;
+    // Incremented whenever the list restarts so pages for an older filter are dropped
+    private int pageGeneration = 0;
+    // Kept for the fragment's lifetime so it survives view re-creation
+    private DocumentFieldResolver userEmailResolver;
+
+    @Override
+    public void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        userEmailResolver = new DocumentFieldResolver(FirebaseFirestore.getInstance(),
+                "users", "email", USER_EMAIL_CACHE_SIZE, USER_EMAIL_TTL_MS);
+    }
+
+    @Override
+    public void onDestroy() {
+        super.onDestroy();
+        Log.d(TAG, "User email lookups: " + userEmailResolver.getMetricsSummary());
+    }
 
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup container,
@@ -50,21 +88,35 @@ public class LoginHistoryFragment extends Fragment {
     public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        // Initialize Firestore and Auth
-        db = FirebaseFirestore.getInstance();
+        // Initialize Auth
         mAuth = FirebaseAuth.getInstance();
 
         // Initialize views
         recyclerView = view.findViewById(R.id.recycler_login_history);
         progressBar = view.findViewById(R.id.progress_bar);
         emptyView = view.findViewById(R.id.empty_view);
+        btnFilterFrom = view.findViewById(R.id.btn_filter_from);
+        btnFilterTo = view.findViewById(R.id.btn_filter_to);
+        btnFilterClear = view.findViewById(R.id.btn_filter_clear);
 
         // Set up RecyclerView
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         loginHistoryList = new ArrayList<>();
-        adapter = new LoginHistoryAdapter(loginHistoryList, isAdmin, db);
+        adapter = new LoginHistoryAdapter(loginHistoryList, isAdmin, userEmailResolver);
+        // Rows are bound during layout, so the adapter can't be changed until it is done
+        adapter.setOnLoadMoreListener(() -> recyclerView.post(this::loadNextPage));
         recyclerView.setAdapter(adapter);
 
+        // Set up date range filter
+        btnFilterFrom.setOnClickListener(v -> pickFilterDate(true));
+        btnFilterTo.setOnClickListener(v -> pickFilterDate(false));
+        btnFilterClear.setOnClickListener(v -> {
+            filterFrom = null;
+            filterTo = null;
+            onFilterChanged();
+        });
+        updateFilterButtons();
+
         // Check if current user is admin
         checkUserRole();
     }
@@ -72,10 +124,9 @@ public class LoginHistoryFragment extends Fragment {
     private void checkUserRole() {
         if (mAuth.getCurrentUser() != null) {
             String userId = mAuth.getCurrentUser().getUid();
-            db.collection("users").document(userId)
-                    .get()
-                    .addOnSuccessListener(documentSnapshot -> {
-                        if (documentSnapshot.exists() && "admin".equals(documentSnapshot.getString("role"))) {
+            Repositories.users().fetch(userId)
+                    .addOnSuccessListener(user -> {
+                        if (user != null && "admin".equals(user.getRole())) {
                             isAdmin = true;
                             // Update adapter with admin status
                             adapter.setAdmin(isAdmin);
@@ -96,49 +147,117 @@ public class LoginHistoryFragment extends Fragment {
         }
     }
 
+    // Start over at the newest entry matching the filter
     private void loadLoginHistory() {
+        pageGeneration++;
+        nextPageCursor = null;
+        loadingPage = false;
+        adapter.setLoadingMore(false);
+        loginHistoryList.clear();
+        adapter.notifyDataSetChanged();
         showLoading(true);
+        loadPage(null);
+    }
 
-        Query query;
-        if (isAdmin) {
-            // Admins can see all login history
-            query = db.collection("loginHistory")
-                    .orderBy("loginDate", Query.Direction.DESCENDING);
-        } else {
-            // Regular users only see their own login history
-            query = db.collection("loginHistory")
-                    .whereEqualTo("userId", mAuth.getCurrentUser().getUid())
-                    .orderBy("loginDate", Query.Direction.DESCENDING);
+    private void loadNextPage() {
+        if (loadingPage || nextPageCursor == null || !isAdded()) {
+            return;
         }
+        adapter.setLoadingMore(true);
+        loadPage(nextPageCursor);
+    }
 
-        query.get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    showLoading(false);
-                    loginHistoryList.clear();
+    private void loadPage(@Nullable LoginHistoryRepository.Cursor after) {
+        loadingPage = true;
+        final int generation = pageGeneration;
 
-                    if (queryDocumentSnapshots.isEmpty()) {
-                        showEmptyView("No login history found");
-                        return;
-                    }
+        // Admins can see all login history; regular users only see their own
+        String userId = isAdmin ? null : mAuth.getCurrentUser().getUid();
 
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        LoginHistory loginHistory = document.toObject(LoginHistory.class);
-                        loginHistory.setId(document.getId());
-                        loginHistoryList.add(loginHistory);
+        Repositories.loginHistory().page(userId, filterFrom, filterTo, after, PAGE_SIZE)
+                .addOnSuccessListener(page -> {
+                    if (generation != pageGeneration || !isAdded()) {
+                        return;
                     }
-
-                    adapter.notifyDataSetChanged();
-                    showRecyclerView();
+                    onPageLoaded(page, after == null);
                 })
                 .addOnFailureListener(e -> {
-                    showLoading(false);
+                    if (generation != pageGeneration || !isAdded()) {
+                        return;
+                    }
+                    loadingPage = false;
+                    adapter.setLoadingMore(false);
                     Log.e(TAG, "Error loading login history", e);
                     Toast.makeText(getContext(), "Error loading login history: " + e.getMessage(),
                             Toast.LENGTH_SHORT).show();
-                    showEmptyView("Error loading login history");
+                    if (after == null) {
+                        showLoading(false);
+                        showEmptyView("Error loading login history");
+                    }
                 });
     }
 
+    private void onPageLoaded(LoginHistoryRepository.Page page, boolean firstPage) {
+        loadingPage = false;
+        nextPageCursor = page.cursor;
+        adapter.setLoadingMore(false);
+
+        if (firstPage) {
+            showLoading(false);
+            if (page.entries.isEmpty()) {
+                showEmptyView(filterFrom != null || filterTo != null
+                        ? "No login history in this date range" : "No login history found");
+                return;
+            }
+            showRecyclerView();
+        }
+        adapter.appendEntries(page.entries);
+    }
+
+    private void pickFilterDate(boolean from) {
+        Calendar calendar = Calendar.getInstance();
+        Date current = from ? filterFrom : filterTo;
+        if (current != null) {
+            calendar.setTime(current);
+            if (!from) {
+                calendar.add(Calendar.DAY_OF_MONTH, -1); // filterTo is the day after the last one
+            }
+        }
+
+        new DatePickerDialog(requireContext(), (view, year, month, day) -> {
+            Calendar picked = Calendar.getInstance();
+            picked.clear();
+            picked.set(year, month, day);
+            if (from) {
+                filterFrom = picked.getTime();
+            } else {
+                picked.add(Calendar.DAY_OF_MONTH, 1); // Include the whole last day
+                filterTo = picked.getTime();
+            }
+            onFilterChanged();
+        }, calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH), calendar.get(Calendar.DAY_OF_MONTH)).show();
+    }
+
+    private void onFilterChanged() {
+        updateFilterButtons();
+        if (mAuth.getCurrentUser() != null) {
+            loadLoginHistory();
+        }
+    }
+
+    private void updateFilterButtons() {
+        btnFilterFrom.setText("From: " + (filterFrom != null ? filterDateFormat.format(filterFrom) : "any date"));
+        if (filterTo != null) {
+            Calendar lastDay = Calendar.getInstance();
+            lastDay.setTime(filterTo);
+            lastDay.add(Calendar.DAY_OF_MONTH, -1);
+            btnFilterTo.setText("To: " + filterDateFormat.format(lastDay.getTime()));
+        } else {
+            btnFilterTo.setText("To: any date");
+        }
+        btnFilterClear.setVisibility(filterFrom != null || filterTo != null ? View.VISIBLE : View.GONE);
+    }
+
     private void showLoading(boolean isLoading) {
         progressBar.setVisibility(isLoading ? View.VISIBLE : View.GONE);
         if (isLoading) {
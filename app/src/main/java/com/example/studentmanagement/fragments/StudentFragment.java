@@ -1,6 +1,8 @@
 package com.example.studentmanagement.fragments;
 
 import android.app.Activity;
+import android.app.AlertDialog;
+import android.app.ProgressDialog;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
@@ -23,6 +25,8 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.appcompat.view.ActionMode;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -33,36 +37,60 @@ import com.example.studentmanagement.activity.StudentDetailActivity;
 import com.example.studentmanagement.adapters.StudentAdapter;
 import com.example.studentmanagement.dialog.ImportExportDialog;
 import com.example.studentmanagement.dialog.StudentDialog;
+import com.example.studentmanagement.helpers.CascadeDeleteService;
+import com.example.studentmanagement.helpers.DashboardStatsLoader;
+import com.example.studentmanagement.helpers.StudentPagingSource;
 import com.example.studentmanagement.models.Student;
+import com.example.studentmanagement.repository.Repositories;
+import com.example.studentmanagement.utils.BatchOperationsUtil;
 import com.example.studentmanagement.utils.CSVUtils;
+import com.example.studentmanagement.utils.StudentSearchIndex;
+import com.example.studentmanagement.utils.StudentSearchPipeline;
+import com.example.studentmanagement.utils.StudentSortOption;
+import com.example.studentmanagement.utils.StudentSyncPlanner;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import android.content.Intent;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class StudentFragment extends Fragment implements StudentAdapter.OnStudentClickListener {
+    private static final String TAG = "StudentFragment";
+    // Students asked from the server for a query the loaded window may not fully answer
+    private static final int SERVER_SEARCH_LIMIT = 50;
 
     private RecyclerView recyclerViewStudents;
     private FloatingActionButton fabAddStudent;
     private SwipeRefreshLayout swipeRefreshLayout;
     private StudentAdapter studentAdapter;
     private List<Student> studentList;
-    private List<Student> filteredStudentList;
     private EditText searchEditText;
     private Spinner sortSpinner;
 
     private FirebaseFirestore db;
+    private StudentPagingSource pagingSource;
+    private final StudentSearchIndex searchIndex = new StudentSearchIndex();
+    private StudentSearchPipeline searchPipeline;
+    // Last query sent to the server, so each query is searched there once
+    private String serverSearchQuery;
     private String userRole = "employee"; // Default role
 
     // Register ActivityResultLaunchers at the fragment level
     private ActivityResultLauncher<Intent> importFileLauncher;
     private ActivityResultLauncher<Intent> exportFileLauncher;
 
+    // Contextual action bar shown while students are selected
+    private ActionMode selectionActionMode;
+    // Selected students waiting for the export file picker; null for a full export
+    private List<Student> pendingExportSelection;
+
     public StudentFragment() {
         // Required empty public constructor
     }
@@ -99,10 +127,16 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
         exportFileLauncher = registerForActivityResult(
                 new ActivityResultContracts.StartActivityForResult(),
                 result -> {
+                    List<Student> selection = pendingExportSelection;
+                    pendingExportSelection = null;
                     if (result.getResultCode() == Activity.RESULT_OK && result.getData() != null) {
                         Uri fileUri = result.getData().getData();
                         if (fileUri != null) {
-                            handleExportCSV(fileUri);
+                            if (selection != null) {
+                                exportSelection(fileUri, selection);
+                            } else {
+                                handleExportCSV(fileUri);
+                            }
                         }
                     }
                 });
@@ -127,11 +161,36 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
 
         // Set up RecyclerView
         studentList = new ArrayList<>();
-        filteredStudentList = new ArrayList<>();
-        studentAdapter = new StudentAdapter(filteredStudentList, this);
+        studentAdapter = new StudentAdapter(this);
         recyclerViewStudents.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerViewStudents.setAdapter(studentAdapter);
 
+        // Live window over the roster that grows a page at a time; changes arrive as deltas
+        pagingSource = new StudentPagingSource(Repositories.students(), new StudentPagingSource.PageListener() {
+            @Override
+            public void onStudentsReset(List<Student> students) {
+                onStudentWindowReset(students);
+            }
+
+            @Override
+            public void onStudentsChanged(List<Student> upserted, List<String> removedIds) {
+                applyStudentChanges(upserted, removedIds);
+            }
+
+            @Override
+            public void onPageError(Exception e) {
+                if (isAdded()) {
+                    Toast.makeText(getContext(), "Error loading students: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                }
+                swipeRefreshLayout.setRefreshing(false);
+            }
+        });
+        pagingSource.attachTo(recyclerViewStudents);
+
+        // Search and sort off the main thread
+        searchPipeline = new StudentSearchPipeline(searchIndex,
+                (query, sortOption, results) -> onSearchResult(query, results));
+
         // Load students
         loadStudents();
 
@@ -157,6 +216,20 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
         setupSortFunctionality();
     }
 
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (selectionActionMode != null) {
+            selectionActionMode.finish();
+        }
+        if (searchPipeline != null) {
+            searchPipeline.shutdown();
+        }
+        if (pagingSource != null) {
+            pagingSource.stop();
+        }
+    }
+
     @Override
     public void onCreateOptionsMenu(@NonNull Menu menu, @NonNull MenuInflater inflater) {
         inflater.inflate(R.menu.menu_student_fragment, menu);
@@ -229,124 +302,110 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
 
     private void loadStudents() {
         swipeRefreshLayout.setRefreshing(true);
-        studentList.clear();
-        filteredStudentList.clear();
-
-        db.collection("students")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Student student = document.toObject(Student.class);
-                        student.setId(document.getId());
-                        studentList.add(student);
-                    }
-                    // Apply current sort and filter
-                    applyCurrentSortAndFilter();
-                    swipeRefreshLayout.setRefreshing(false);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(getContext(), "Error loading students: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    swipeRefreshLayout.setRefreshing(false);
-                });
+        pagingSource.refresh();
     }
 
-    private void filterStudents(String query) {
-        filteredStudentList.clear();
+    private void onStudentWindowReset(List<Student> students) {
+        studentList.clear();
+        studentList.addAll(students);
+        searchIndex.clear();
+        searchIndex.addAll(students);
+        // The adapter diffs against the rows on screen, so rows already shown are not rebound
+        applyCurrentSortAndFilter();
+        swipeRefreshLayout.setRefreshing(false);
+    }
 
-        if (query.isEmpty()) {
-            filteredStudentList.addAll(studentList);
-        } else {
-            String lowerCaseQuery = query.toLowerCase();
-
-            for (Student student : studentList) {
-                if (student.getName().toLowerCase().contains(lowerCaseQuery) ||
-                        student.getStudentId().toLowerCase().contains(lowerCaseQuery) ||
-                        (student.getEmail() != null && student.getEmail().toLowerCase().contains(lowerCaseQuery)) ||
-                        (student.getClassName() != null && student.getClassName().toLowerCase().contains(lowerCaseQuery))) {
-                    filteredStudentList.add(student);
-                }
+    // Apply a listener delta to the loaded students without touching the rest
+    private void applyStudentChanges(List<Student> upserted, List<String> removedIds) {
+        Map<String, Student> changed = new HashMap<>();
+        for (Student student : upserted) {
+            changed.put(student.getId(), student);
+        }
+        Set<String> removed = new HashSet<>(removedIds);
+
+        for (int i = studentList.size() - 1; i >= 0; i--) {
+            String id = studentList.get(i).getId();
+            if (removed.contains(id)) {
+                studentList.remove(i);
+            } else if (changed.containsKey(id)) {
+                studentList.set(i, changed.remove(id));
             }
         }
+        // Whatever is left was not loaded yet
+        studentList.addAll(changed.values());
 
-        // Apply current sort to filtered results
-        int sortPosition = sortSpinner.getSelectedItemPosition();
-        if (sortPosition > 0) { // 0 is usually "Default" or "None"
-            sortStudentList(sortPosition);
+        for (String studentId : removedIds) {
+            searchIndex.remove(studentId);
+            searchPipeline.removeRemoteMatch(studentId);
         }
-
-        studentAdapter.notifyDataSetChanged();
+        searchIndex.addAll(upserted);
+        applyCurrentSortAndFilter();
     }
 
-    private void sortStudents(int sortOption) {
-        // Apply sorting to the already filtered list
-        sortStudentList(sortOption);
-        studentAdapter.notifyDataSetChanged();
+    private void filterStudents(String query) {
+        // Debounced; matching and sorting run on the pipeline's worker thread
+        searchPipeline.submit(query, sortSpinner.getSelectedItemPosition());
     }
 
-    private void sortStudentList(int sortOption) {
-        switch (sortOption) {
-            case 0: // Default - No sort
-                // Do nothing, keep original order
-                break;
-            case 1: // Name (A-Z)
-                Collections.sort(filteredStudentList, (s1, s2) ->
-                        s1.getName().compareToIgnoreCase(s2.getName()));
-                break;
-            case 2: // Name (Z-A)
-                Collections.sort(filteredStudentList, (s1, s2) ->
-                        s2.getName().compareToIgnoreCase(s1.getName()));
-                break;
-            case 3: // Student ID (ascending)
-                Collections.sort(filteredStudentList, (s1, s2) ->
-                        s1.getStudentId().compareToIgnoreCase(s2.getStudentId()));
-                break;
-            case 4: // Student ID (descending)
-                Collections.sort(filteredStudentList, (s1, s2) ->
-                        s2.getStudentId().compareToIgnoreCase(s1.getStudentId()));
-                break;
-            case 5: // Class name
-                Collections.sort(filteredStudentList, (s1, s2) -> {
-                    if (s1.getClassName() == null) return -1;
-                    if (s2.getClassName() == null) return 1;
-                    return s1.getClassName().compareToIgnoreCase(s2.getClassName());
-                });
-                break;
+    private void sortStudents(int sortOption) {
+        // Loaded students are re-sorted in memory right away; unless the whole roster is
+        // loaded, the window then restarts in the new order so its first page is the right one
+        if (pagingSource.setSortOption(StudentSortOption.fromPosition(sortOption))) {
+            swipeRefreshLayout.setRefreshing(true);
         }
+        searchPipeline.submitNow(searchEditText.getText().toString(), sortOption);
     }
 
     private void applyCurrentSortAndFilter() {
-        // First apply filter
-        String currentQuery = searchEditText.getText().toString();
-        filteredStudentList.clear();
+        searchPipeline.submitNow(searchEditText.getText().toString(), sortSpinner.getSelectedItemPosition());
+    }
 
-        if (currentQuery.isEmpty()) {
-            filteredStudentList.addAll(studentList);
-        } else {
-            filterStudents(currentQuery);
-            return; // filterStudents already handles sorting
-        }
+    private void onSearchResult(String query, List<Student> results) {
+        // The adapter diffs against the rows on screen, so only changed rows rebind
+        studentAdapter.submitList(results);
+        searchServer(query);
+    }
 
-        // Then apply sort
-        int sortPosition = sortSpinner.getSelectedItemPosition();
-        if (sortPosition > 0) {
-            sortStudentList(sortPosition);
+    // Until the whole roster is loaded, matches may exist beyond the window; the
+    // server finds them through the search keys, and the pipeline merges them in
+    private void searchServer(String query) {
+        if (query.trim().isEmpty() || pagingSource.isEndReached() || query.equals(serverSearchQuery)) {
+            return;
         }
-
-        studentAdapter.notifyDataSetChanged();
+        serverSearchQuery = query;
+        Repositories.students().search(query, SERVER_SEARCH_LIMIT)
+                .addOnSuccessListener(students -> {
+                    if (!isAdded() || !query.equals(searchEditText.getText().toString())) {
+                        return; // The user has typed on; that query gets its own search
+                    }
+                    searchPipeline.setRemoteMatches(query, students);
+                    applyCurrentSortAndFilter();
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Server search failed for \"" + query + "\"", e);
+                    if (query.equals(serverSearchQuery)) {
+                        serverSearchQuery = null; // Retry with the next result for this query
+                    }
+                });
     }
 
     private void refreshStudentList() {
-        loadStudents();
+        if (pagingSource.isLive()) {
+            // The page listeners have already applied every change; nothing to refetch
+            swipeRefreshLayout.setRefreshing(false);
+        } else {
+            loadStudents();
+        }
     }
 
     private void showAddStudentDialog() {
         StudentDialog dialog = new StudentDialog(getContext(), null, new StudentDialog.StudentDialogListener() {
             @Override
             public void onStudentAdded(Student student) {
-                // Student is already added to Firestore by the dialog
-                // Update our local list
-                studentList.add(student);
-                applyCurrentSortAndFilter();
+                // Student is already added to Firestore by the dialog; the listener may
+                // have delivered it already, so this is applied as an upsert
+                applyStudentChanges(Collections.singletonList(student), Collections.emptyList());
+                invalidateDashboardStats();
             }
 
             @Override
@@ -375,23 +434,64 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
                 for (int i = 0; i < studentList.size(); i++) {
                     if (studentList.get(i).getId().equals(updatedStudent.getId())) {
                         studentList.set(i, updatedStudent);
+                        // Server search matches outside the window stay out of the index
+                        searchIndex.update(updatedStudent);
                         break;
                     }
                 }
 
-                // Update filtered list and adapter
-                filteredStudentList.set(position, updatedStudent);
-                studentAdapter.notifyItemChanged(position);
+                // The dialog edits the instance already shown, so rebind its row explicitly
+                studentAdapter.refreshStudent(updatedStudent);
             }
 
             @Override
-            public void onStudentDeleted(Student student) {
-                // Not applicable for Edit operation
+            public void onStudentDeleted(Student deletedStudent) {
+                // The edit dialog also offers delete
+                removeStudentLocally(deletedStudent);
             }
         });
         dialog.show();
     }
 
+    // Drop several deleted students with a single adapter update
+    private void removeStudentsLocally(List<String> studentIds) {
+        if (studentIds.isEmpty()) {
+            return;
+        }
+        Set<String> removed = new HashSet<>(studentIds);
+        studentList.removeIf(student -> removed.contains(student.getId()));
+        for (String studentId : studentIds) {
+            searchIndex.remove(studentId);
+            searchPipeline.removeRemoteMatch(studentId);
+        }
+        studentAdapter.removeStudents(removed);
+        invalidateDashboardStats();
+    }
+
+    private void removeStudentLocally(Student student) {
+        for (int i = 0; i < studentList.size(); i++) {
+            if (studentList.get(i).getId().equals(student.getId())) {
+                studentList.remove(i);
+                break;
+            }
+        }
+        searchIndex.remove(student.getId());
+        searchPipeline.removeRemoteMatch(student.getId());
+        studentAdapter.removeStudent(student.getId());
+        invalidateDashboardStats();
+    }
+
+    // Student and certificate counts on the dashboard no longer match
+    private void invalidateDashboardStats() {
+        if (getContext() == null) {
+            return;
+        }
+        DashboardStatsLoader statsLoader = new DashboardStatsLoader(getContext(), db);
+        statsLoader.invalidate(DashboardStatsLoader.STAT_STUDENTS);
+        statsLoader.invalidate(DashboardStatsLoader.STAT_CERTIFICATES);
+        statsLoader.invalidate(DashboardStatsLoader.STAT_EXPIRING_CERTIFICATES);
+    }
+
     private void showImportExportDialog() {
         ImportExportDialog dialog = new ImportExportDialog(
                 requireContext(),
@@ -399,8 +499,8 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
                 new ImportExportDialog.ImportExportListener() {
                     @Override
                     public void onImportCompleted() {
-                        // Refresh the student list after import
-                        loadStudents();
+                        // Imported students arrive through the listener
+                        invalidateDashboardStats();
                     }
 
                     @Override
@@ -416,16 +516,74 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
 
     // These handlers should be in the fragment since they're used with the fragment's launchers
     private void handleImportCSV(Uri fileUri) {
-        CSVUtils.importStudentsFromCSV(requireContext(), fileUri, new CSVUtils.OnCSVOperationListener() {
+        ProgressDialog progressDialog = new ProgressDialog(requireContext());
+        progressDialog.setTitle("Importing Students");
+        progressDialog.setMessage("Comparing with existing students...");
+        progressDialog.setCancelable(false);
+        progressDialog.show();
+
+        // Dry run first: nothing is written until the user confirms the changes
+        CSVUtils.planStudentImport(this, requireContext(), fileUri, new StudentSyncPlanner.PlanListener() {
+            @Override
+            public void onPlanReady(StudentSyncPlanner.Plan plan) {
+                progressDialog.dismiss();
+                if (isAdded()) {
+                    showImportPlan(fileUri, plan);
+                }
+            }
+
+            @Override
+            public void onPlanFailed(String message) {
+                progressDialog.dismiss();
+                if (isAdded()) {
+                    Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
+                }
+            }
+        });
+    }
+
+    private void showImportPlan(Uri fileUri, StudentSyncPlanner.Plan plan) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext())
+                .setTitle("Import Preview")
+                .setMessage(plan.getReport());
+        if (plan.getWriteCount() > 0) {
+            builder.setPositiveButton("Import Changes", (dialog, which) -> commitImport(fileUri, plan))
+                    .setNegativeButton("Cancel", null);
+        } else {
+            builder.setPositiveButton("OK", null);
+        }
+        builder.show();
+    }
+
+    private void commitImport(Uri fileUri, StudentSyncPlanner.Plan plan) {
+        ProgressDialog progressDialog = new ProgressDialog(requireContext());
+        progressDialog.setTitle("Importing Students");
+        progressDialog.setMessage("Please wait...");
+        progressDialog.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
+        progressDialog.setCancelable(false);
+        progressDialog.show();
+
+        // Keeps running if the user leaves this screen; the callbacks then only close the dialog
+        CSVUtils.commitStudentImport(requireContext(), fileUri, plan, new CSVUtils.OnCSVOperationListener() {
             @Override
             public void onProgressUpdate(int current, int total) {
-                // Progress updates will be handled by the dialog
+                if (!isAdded()) {
+                    return;
+                }
+                // Counts the rows of the file, which is read again while it is written
+                progressDialog.setMax(total);
+                progressDialog.setProgress(current);
             }
 
             @Override
             public void onOperationComplete(boolean success, String message) {
+                progressDialog.dismiss();
+                if (!isAdded()) {
+                    return;
+                }
                 if (success) {
-                    loadStudents();
+                    // Written students arrive through the listener as deltas
+                    invalidateDashboardStats();
                 }
                 Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
             }
@@ -433,75 +591,56 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
     }
 
     private void handleExportCSV(Uri fileUri) {
-        CSVUtils.exportStudentsToCSV(requireContext(), studentList, fileUri, new CSVUtils.OnCSVOperationListener() {
+        ProgressDialog progressDialog = new ProgressDialog(requireContext());
+        progressDialog.setTitle("Exporting Students");
+        progressDialog.setMessage("Please wait...");
+        progressDialog.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
+        progressDialog.setCancelable(false);
+        progressDialog.show();
+
+        // Exports the whole roster from Firestore, not just the pages loaded here
+        CSVUtils.exportStudentsToCSV(this, requireContext(), fileUri, new CSVUtils.OnCSVOperationListener() {
             @Override
             public void onProgressUpdate(int current, int total) {
-                // Export doesn't provide progress updates in the current implementation
+                if (!isAdded()) {
+                    return;
+                }
+                progressDialog.setMax(total);
+                progressDialog.setProgress(current);
             }
 
             @Override
             public void onOperationComplete(boolean success, String message) {
+                progressDialog.dismiss();
+                if (!isAdded()) {
+                    return;
+                }
                 Toast.makeText(requireContext(), message, Toast.LENGTH_LONG).show();
             }
         });
     }
 
     private void deleteStudent(Student student, int position) {
-        // First, delete all certificates associated with this student
-        db.collection("certificates")
-                .whereEqualTo("studentId", student.getId())
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    // Create a batch to delete all certificates
-                    if (!queryDocumentSnapshots.isEmpty()) {
-                        // Create a batch operation for efficient deletion
-                        com.google.firebase.firestore.WriteBatch batch = db.batch();
-
-                        for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                            batch.delete(document.getReference());
-                        }
-
-                        // Commit the batch
-                        batch.commit()
-                                .addOnSuccessListener(aVoid -> {
-                                    Log.d("StudentFragment", "All certificates deleted for student: " + student.getId());
-                                })
-                                .addOnFailureListener(e -> {
-                                    Log.e("StudentFragment", "Error deleting certificates: " + e.getMessage());
-                                });
-                    }
-
-                    // Now delete the student
-                    deleteStudentDocument(student, position);
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("StudentFragment", "Error querying certificates: " + e.getMessage());
-                    // Still try to delete the student even if certificate query fails
-                    deleteStudentDocument(student, position);
-                });
-    }
-
-    // Extracted method to delete the student document
-    private void deleteStudentDocument(Student student, int position) {
-        db.collection("students").document(student.getId())
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    // Remove from main list
-                    for (int i = 0; i < studentList.size(); i++) {
-                        if (studentList.get(i).getId().equals(student.getId())) {
-                            studentList.remove(i);
-                            break;
-                        }
-                    }
+        // Certificates first, then the student, in bounded batches
+        Repositories.students().deleteWithCertificates(Collections.singletonList(student.getId()), new CascadeDeleteService.Listener() {
+            @Override
+            public void onProgress(int deletedStudents, int totalStudents) {
+                // A single student is deleted in one batch once its certificates are gone
+            }
 
-                    // Remove from filtered list and update adapter
-                    filteredStudentList.remove(position);
-                    studentAdapter.notifyItemRemoved(position);
-                    Toast.makeText(getContext(), "Student deleted successfully", Toast.LENGTH_SHORT).show();
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(getContext(), "Error deleting student: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                });
+            @Override
+            public void onComplete(CascadeDeleteService.Result result) {
+                if (!isAdded()) {
+                    return;
+                }
+                Log.d(TAG, result.certificatesDeleted + " certificates deleted for student: " + student.getId());
+                if (result.isSuccessful()) {
+                    // Remove from main list, search index and adapter
+                    removeStudentLocally(student);
+                }
+                Toast.makeText(getContext(), result.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     @Override
@@ -531,6 +670,208 @@ public class StudentFragment extends Fragment implements StudentAdapter.OnStuden
         }
     }
 
+    @Override
+    public void onStudentLongClick(Student student, int position) {
+        // Bulk actions are for the roles that may edit and delete students
+        if (!canEditStudent() || !canDeleteStudent()) {
+            return;
+        }
+        studentAdapter.startSelection(student);
+        selectionActionMode = ((AppCompatActivity) requireActivity()).startSupportActionMode(selectionCallback);
+        onSelectionChanged(1);
+    }
+
+    @Override
+    public void onSelectionChanged(int selectedCount) {
+        if (selectionActionMode == null) {
+            return;
+        }
+        if (selectedCount == 0) {
+            selectionActionMode.finish();
+        } else {
+            selectionActionMode.setTitle(selectedCount + " selected");
+        }
+    }
+
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            mode.getMenuInflater().inflate(R.menu.menu_student_selection, menu);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            return false;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            List<Student> selected = studentAdapter.getSelectedStudents();
+            int itemId = item.getItemId();
+            if (itemId == R.id.action_select_all) {
+                studentAdapter.selectAll();
+            } else if (itemId == R.id.action_delete_selected) {
+                confirmBulkDelete(selected);
+            } else if (itemId == R.id.action_change_class) {
+                showChangeClassDialog(selected);
+            } else if (itemId == R.id.action_export_selected) {
+                launchSelectionExport(selected);
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            selectionActionMode = null;
+            studentAdapter.clearSelection();
+        }
+    };
+
+    private void confirmBulkDelete(List<Student> students) {
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Delete Students")
+                .setMessage("Delete " + students.size() + " students? This will also delete all their certificates.")
+                .setPositiveButton("Delete", (dialog, which) -> deleteStudents(students))
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void deleteStudents(List<Student> students) {
+        ProgressDialog progressDialog = newBulkProgressDialog("Deleting Students", students.size());
+
+        List<String> ids = new ArrayList<>(students.size());
+        for (Student student : students) {
+            ids.add(student.getId());
+        }
+        Repositories.students().deleteWithCertificates(ids, new CascadeDeleteService.Listener() {
+            @Override
+            public void onProgress(int deletedStudents, int totalStudents) {
+                progressDialog.setProgress(deletedStudents);
+            }
+
+            @Override
+            public void onComplete(CascadeDeleteService.Result result) {
+                progressDialog.dismiss();
+                if (!isAdded()) {
+                    return;
+                }
+                removeStudentsLocally(result.deletedStudentIds);
+                if (selectionActionMode != null) {
+                    selectionActionMode.finish();
+                }
+                Toast.makeText(getContext(), result.getMessage(), Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private void showChangeClassDialog(List<Student> students) {
+        EditText input = new EditText(requireContext());
+        input.setHint("Class");
+        input.setText(students.isEmpty() ? "" : students.get(0).getClassName());
+
+        new AlertDialog.Builder(requireContext())
+                .setTitle("Change Class of " + students.size() + " Students")
+                .setView(input)
+                .setPositiveButton("Save", (dialog, which) -> {
+                    String className = input.getText().toString().trim();
+                    if (className.isEmpty()) {
+                        Toast.makeText(getContext(), "Class cannot be empty", Toast.LENGTH_SHORT).show();
+                    } else {
+                        changeClass(students, className);
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void changeClass(List<Student> students, String className) {
+        ProgressDialog progressDialog = newBulkProgressDialog("Updating Students", students.size());
+
+        List<String> ids = new ArrayList<>(students.size());
+        for (Student student : students) {
+            ids.add(student.getId());
+        }
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("className", className);
+
+        BatchOperationsUtil.BatchOperationListener listener = new BatchOperationsUtil.BatchOperationListener() {
+            @Override
+            public void onBatchOperationProgress(int processedRecords, int totalRecords) {
+                progressDialog.setProgress(processedRecords);
+            }
+
+            @Override
+            public void onBatchOperationComplete(int totalSuccessCount, Map<String, Exception> failures) {
+                progressDialog.dismiss();
+                if (!isAdded()) {
+                    return;
+                }
+                // Update the shared instances, then rebind all changed rows in one pass
+                List<String> updatedIds = new ArrayList<>(students.size());
+                for (Student student : students) {
+                    if (!failures.containsKey(student.getId())) {
+                        student.setClassName(className);
+                        searchIndex.update(student);
+                        updatedIds.add(student.getId());
+                    }
+                }
+                studentAdapter.refreshStudents(updatedIds);
+                if (selectionActionMode != null) {
+                    selectionActionMode.finish();
+                }
+                String message = totalSuccessCount + " students moved to " + className;
+                if (!failures.isEmpty()) {
+                    message += ", " + failures.size() + " failed";
+                }
+                Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+            }
+        };
+        Repositories.students().updateAll(ids, changes, listener);
+    }
+
+    private void launchSelectionExport(List<Student> students) {
+        pendingExportSelection = students;
+        Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+        intent.addCategory(Intent.CATEGORY_OPENABLE);
+        intent.setType("text/csv");
+        intent.putExtra(Intent.EXTRA_TITLE, "students_selection.csv");
+        exportFileLauncher.launch(intent);
+    }
+
+    private void exportSelection(Uri fileUri, List<Student> students) {
+        CSVUtils.exportStudentsToCSV(this, requireContext(), fileUri, students, new CSVUtils.OnCSVOperationListener() {
+            @Override
+            public void onProgressUpdate(int current, int total) {
+                // Selections are written in one go
+            }
+
+            @Override
+            public void onOperationComplete(boolean success, String message) {
+                if (!isAdded()) {
+                    return;
+                }
+                if (success && selectionActionMode != null) {
+                    selectionActionMode.finish();
+                }
+                Toast.makeText(getContext(), message, Toast.LENGTH_LONG).show();
+            }
+        });
+    }
+
+    private ProgressDialog newBulkProgressDialog(String title, int total) {
+        ProgressDialog progressDialog = new ProgressDialog(requireContext());
+        progressDialog.setTitle(title);
+        progressDialog.setMessage("Please wait...");
+        progressDialog.setProgressStyle(ProgressDialog.STYLE_HORIZONTAL);
+        progressDialog.setMax(total);
+        progressDialog.setCancelable(false);
+        progressDialog.show();
+        return progressDialog;
+    }
+
     // Permission methods
     private boolean canAddStudent() {
         return "admin".equals(userRole) || "manager".equals(userRole);
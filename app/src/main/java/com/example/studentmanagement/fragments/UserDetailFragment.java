@@ -25,10 +25,10 @@ import com.bumptech.glide.Glide;
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.dialog.UserDialog;
 import com.example.studentmanagement.models.User;
+import com.example.studentmanagement.repository.Repositories;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.navigation.NavigationView;
 import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
@@ -45,7 +45,6 @@ public class UserDetailFragment extends Fragment {
     private Button btnChangePhoto, btnEditProfile;
 
     private User currentUser;
-    private FirebaseFirestore db;
     private FirebaseStorage storage;
     private Uri selectedImageUri;
     private String currentUserId;
@@ -69,7 +68,6 @@ public class UserDetailFragment extends Fragment {
         super.onCreate(savedInstanceState);
 
         // Initialize Firebase
-        db = FirebaseFirestore.getInstance();
         storage = FirebaseStorage.getInstance();
         currentUserId = FirebaseAuth.getInstance().getCurrentUser().getUid();
 
@@ -128,12 +126,10 @@ public class UserDetailFragment extends Fragment {
     }
 
     private void loadCurrentUserData() {
-        db.collection("users").document(currentUserId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        currentUser = documentSnapshot.toObject(User.class);
-                        currentUser.setId(documentSnapshot.getId());
+        Repositories.users().fetch(currentUserId)
+                .addOnSuccessListener(user -> {
+                    if (user != null) {
+                        currentUser = user;
 
                         // Display user data
                         displayUserData();
@@ -263,8 +259,7 @@ public class UserDetailFragment extends Fragment {
         Map<String, Object> updates = new HashMap<>();
         updates.put("photoUrl", imageUrl);
 
-        db.collection("users").document(currentUser.getId())
-                .update(updates)
+        Repositories.users().update(currentUser.getId(), updates)
                 .addOnSuccessListener(aVoid -> {
                     // Hide progress bar
                     progressBar.setVisibility(View.GONE);
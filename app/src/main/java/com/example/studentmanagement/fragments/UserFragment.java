@@ -18,14 +18,20 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 import com.example.studentmanagement.R;
 import com.example.studentmanagement.adapters.UserAdapter;
 import com.example.studentmanagement.dialog.UserDialog;
+import com.example.studentmanagement.helpers.CascadeDeleteService;
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.helpers.SnapshotDeltas;
 import com.example.studentmanagement.models.User;
+import com.example.studentmanagement.repository.Repositories;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class UserFragment extends Fragment implements UserAdapter.OnUserClickListener {
@@ -36,9 +42,9 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserClickLis
     private UserAdapter userAdapter;
     private List<User> userList;
 
-    private FirebaseFirestore db;
     private FirebaseAuth mAuth;
     private String currentUserId;
+    private ListenerRegistration usersRegistration;
 
     public UserFragment() {
         // Required empty public constructor
@@ -56,7 +62,6 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserClickLis
         super.onViewCreated(view, savedInstanceState);
 
         // Initialize Firebase
-        db = FirebaseFirestore.getInstance();
         mAuth = FirebaseAuth.getInstance();
         currentUserId = mAuth.getCurrentUser() != null ? mAuth.getCurrentUser().getUid() : "";
 
@@ -87,29 +92,50 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserClickLis
 
     private void loadUsers() {
         swipeRefreshLayout.setRefreshing(true);
-        userList.clear();
-
-        db.collection("users")
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        User user = document.toObject(User.class);
-                        user.setId(document.getId());
-                        if (!"admin".equals(user.getRole())) {
-                            userList.add(user);
-                        }
-                    }
-                    userAdapter.notifyDataSetChanged();
+
+        // One listener for the screen; later changes arrive as deltas instead of reloads
+        usersRegistration = Repositories.users().listenAll(new FirestoreReadPolicy.SnapshotCallback() {
+            @Override
+            public void onSnapshot(@NonNull QuerySnapshot snapshot, boolean reset) {
+                SnapshotDeltas.apply(snapshot, reset, userList, UserFragment::toListedUser, User::getId, userAdapter);
+                if (!snapshot.getMetadata().isFromCache()) {
                     swipeRefreshLayout.setRefreshing(false);
-                })
-                .addOnFailureListener(e -> {
+                }
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                usersRegistration = null;
+                if (isAdded()) {
                     Toast.makeText(getContext(), "Error loading users: " + e.getMessage(), Toast.LENGTH_SHORT).show();
-                    swipeRefreshLayout.setRefreshing(false);
-                });
+                }
+                swipeRefreshLayout.setRefreshing(false);
+            }
+        });
+    }
+
+    // Admins are not listed
+    private static User toListedUser(DocumentSnapshot document) {
+        User user = Repositories.users().toModel(document);
+        return user == null || "admin".equals(user.getRole()) ? null : user;
     }
 
     private void refreshUserList() {
-        loadUsers();
+        if (usersRegistration != null) {
+            // The listener already keeps the list current
+            swipeRefreshLayout.setRefreshing(false);
+        } else {
+            loadUsers();
+        }
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        if (usersRegistration != null) {
+            usersRegistration.remove();
+            usersRegistration = null;
+        }
     }
 
     private void showAddUserDialog() {
@@ -118,8 +144,7 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserClickLis
             public void onUserAdded(User user) {
                 // User is already added to Firestore by the dialog
                 // Just update our local list
-                userList.add(user);
-                userAdapter.notifyItemInserted(userList.size() - 1);
+                SnapshotDeltas.upsert(userList, user, User::getId, userAdapter);
             }
 
             @Override
@@ -146,8 +171,7 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserClickLis
             public void onUserUpdated(User updatedUser) {
                 // User is already updated in Firestore by the dialog
                 // Just update our local list
-                userList.set(position, updatedUser);
-                userAdapter.notifyItemChanged(position);
+                SnapshotDeltas.upsert(userList, updatedUser, User::getId, userAdapter);
             }
 
             @Override
@@ -196,23 +220,15 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserClickLis
 
     private void deleteUserFromFirestore(User user, int position) {
         // Delete user from Firestore
-        db.collection("users").document(user.getId())
-                .delete()
+        Repositories.users().delete(user.getId())
                 .addOnSuccessListener(aVoid -> {
                     // If the user is a student, also delete from students collection
                     if ("student".equals(user.getRole())) {
                         removeStudentFromFirebase(user.getEmail());
                     }
 
-                    // Find the user in the list instead of relying on the position parameter
-                    int currentPosition = userList.indexOf(user);
-                    if (currentPosition != -1 && currentPosition < userList.size()) {
-                        userList.remove(currentPosition);
-                        userAdapter.notifyItemRemoved(currentPosition);
-                    } else {
-                        // If we can't find the user or the position is invalid, just refresh the whole list
-                        refreshUserList();
-                    }
+                    // Match by ID; the listener may already have removed the row
+                    SnapshotDeltas.remove(userList, user.getId(), User::getId, userAdapter);
                     Toast.makeText(getContext(), "User deleted successfully", Toast.LENGTH_SHORT).show();
                 })
                 .addOnFailureListener(e -> {
@@ -220,17 +236,24 @@ public class UserFragment extends Fragment implements UserAdapter.OnUserClickLis
                 });
     }
 
-    // Method to remove student from Firebase students collection
+    // Method to remove student from Firebase students collection, along with their certificates
     private void removeStudentFromFirebase(String email) {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        db.collection("students").document(email)  // Use email as document ID
-                .delete()
-                .addOnSuccessListener(aVoid -> {
+        // Use email as document ID
+        Repositories.students().deleteWithCertificates(Collections.singletonList(email), new CascadeDeleteService.Listener() {
+            @Override
+            public void onProgress(int deletedStudents, int totalStudents) {
+                // Nothing shown for the student record
+            }
+
+            @Override
+            public void onComplete(CascadeDeleteService.Result result) {
+                if (result.isSuccessful()) {
                     Log.d("UserFragment", "Student record successfully removed from students collection");
-                })
-                .addOnFailureListener(e -> {
-                    Log.e("UserFragment", "Error removing student from students collection", e);
-                });
+                } else {
+                    Log.e("UserFragment", "Error removing student from students collection: " + result.getMessage());
+                }
+            }
+        });
     }
 
     @Override
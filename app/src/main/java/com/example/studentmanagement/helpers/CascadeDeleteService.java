@@ -0,0 +1,255 @@
+package com.example.studentmanagement.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.studentmanagement.utils.AppExecutors;
+import com.example.studentmanagement.utils.BulkWriter;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Deletes students together with the certificates that reference them.
+ * Certificates are read a page at a time and deleted through a BulkWriter in
+ * 500-delete batches, a few batches at a time, so any number of certificates can
+ * be removed. A student document is only deleted once every one of its certificates
+ * is gone; if some could not be deleted the student is kept, so the delete can be
+ * retried instead of leaving orphaned certificates behind.
+ * Deletes are not tied to a lifecycle: they finish even if the screen is closed.
+ */
+public class CascadeDeleteService {
+    private static final String TAG = "CascadeDeleteService";
+
+    // Certificates read per request
+    public static final int PAGE_SIZE = 500;
+    // Delete batches committing at the same time
+    public static final int MAX_IN_FLIGHT = 4;
+    // Firestore allows at most 30 values in a whereIn filter
+    private static final int STUDENTS_PER_QUERY = 30;
+
+    private final FirebaseFirestore db;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    public interface Listener {
+        void onProgress(int deletedStudents, int totalStudents);
+
+        void onComplete(Result result);
+    }
+
+    public static class Result {
+        public final List<String> deletedStudentIds;
+        public final int requestedStudents;
+        public final int certificatesDeleted;
+        // Document path -> error, for every document that could not be deleted
+        public final Map<String, Exception> failures;
+
+        Result(List<String> deletedStudentIds, int requestedStudents, int certificatesDeleted,
+               Map<String, Exception> failures) {
+            this.deletedStudentIds = deletedStudentIds;
+            this.requestedStudents = requestedStudents;
+            this.certificatesDeleted = certificatesDeleted;
+            this.failures = failures;
+        }
+
+        public boolean isSuccessful() {
+            return failures.isEmpty() && deletedStudentIds.size() == requestedStudents;
+        }
+
+        public String getMessage() {
+            if (isSuccessful()) {
+                return requestedStudents == 1 ? "Student deleted successfully"
+                        : requestedStudents + " students deleted successfully";
+            }
+            String error = failures.isEmpty() ? "unknown error" : failures.values().iterator().next().getMessage();
+            if (requestedStudents == 1) {
+                return "Error deleting student: " + error;
+            }
+            return deletedStudentIds.size() + " of " + requestedStudents + " students deleted, "
+                    + failures.size() + " documents failed: " + error;
+        }
+    }
+
+    public CascadeDeleteService(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Delete a student and its certificates in the background
+     * @param studentId Document ID of the student
+     * @param listener  Called on the main thread
+     */
+    public void deleteStudent(String studentId, Listener listener) {
+        deleteStudents(Collections.singletonList(studentId), listener);
+    }
+
+    /**
+     * Delete several students and all their certificates in the background
+     * @param studentIds Document IDs of the students
+     * @param listener   Called on the main thread
+     */
+    public void deleteStudents(List<String> studentIds, Listener listener) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(studentIds));
+        AppExecutors.get().bulk().execute(() -> deleteStudentsBlocking(ids, listener));
+    }
+
+    @WorkerThread
+    private void deleteStudentsBlocking(List<String> studentIds, Listener listener) {
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        List<String> deletedStudentIds = new ArrayList<>();
+        int certificatesDeleted = 0;
+
+        try {
+            // Certificate path -> student, to know which students still have certificates left
+            Map<String, String> owners = new HashMap<>();
+            BulkWriter.Result certificates = deleteCertificates(studentIds, owners);
+            certificatesDeleted = certificates.committedRecords;
+            failures.putAll(certificates.failures);
+
+            Set<String> blocked = new LinkedHashSet<>();
+            for (String path : certificates.failures.keySet()) {
+                blocked.add(owners.get(path));
+            }
+            List<String> deletable = new ArrayList<>();
+            for (String studentId : studentIds) {
+                if (!blocked.contains(studentId)) {
+                    deletable.add(studentId);
+                }
+            }
+
+            BulkWriter.Result students = run(writer -> {
+                for (String studentId : deletable) {
+                    DocumentReference studentRef = db.collection("students").document(studentId);
+                    writer.add(studentId, batch -> batch.delete(studentRef));
+                }
+            }, (committed, total) -> listener.onProgress(committed, studentIds.size()));
+            failures.putAll(students.failures);
+            for (String studentId : deletable) {
+                if (!students.failures.containsKey(studentId)) {
+                    deletedStudentIds.add(studentId);
+                }
+            }
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error loading certificates of students to delete", e);
+            failures.put("certificates", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.put("students", e);
+        }
+
+        Result result = new Result(deletedStudentIds, studentIds.size(), certificatesDeleted, failures);
+        Log.d(TAG, "Deleted " + deletedStudentIds.size() + " of " + studentIds.size() + " students, "
+                + certificatesDeleted + " certificates, " + failures.size() + " failures");
+        mainHandler.post(() -> listener.onComplete(result));
+    }
+
+    // Page through the students' certificates, deleting each page while reading the next
+    private BulkWriter.Result deleteCertificates(List<String> studentIds, Map<String, String> owners)
+            throws ExecutionException, InterruptedException {
+        AtomicReference<ExecutionException> readError = new AtomicReference<>();
+        BulkWriter.Result result = run(writer -> {
+            for (int start = 0; start < studentIds.size() && readError.get() == null; start += STUDENTS_PER_QUERY) {
+                List<String> group = studentIds.subList(start, Math.min(start + STUDENTS_PER_QUERY, studentIds.size()));
+                try {
+                    deleteCertificatesOf(group, writer, owners);
+                } catch (ExecutionException e) {
+                    readError.set(e);
+                }
+            }
+        }, null);
+        if (readError.get() != null) {
+            throw readError.get();
+        }
+        return result;
+    }
+
+    private void deleteCertificatesOf(List<String> studentIds, BulkWriter writer, Map<String, String> owners)
+            throws ExecutionException, InterruptedException {
+        DocumentSnapshot lastDocument = null;
+        while (true) {
+            Query query = db.collection("certificates")
+                    .whereIn("studentId", studentIds)
+                    .orderBy(FieldPath.documentId())
+                    .limit(PAGE_SIZE);
+            if (lastDocument != null) {
+                query = query.startAfter(lastDocument);
+            }
+            QuerySnapshot page = Tasks.await(query.get());
+
+            for (DocumentSnapshot document : page.getDocuments()) {
+                DocumentReference certificateRef = document.getReference();
+                owners.put(certificateRef.getPath(), document.getString("studentId"));
+                writer.add(certificateRef.getPath(), batch -> batch.delete(certificateRef));
+            }
+
+            if (page.size() < PAGE_SIZE) {
+                break;
+            }
+            lastDocument = page.getDocuments().get(page.size() - 1);
+        }
+    }
+
+    private interface WriterTask {
+        void addWrites(BulkWriter writer) throws InterruptedException;
+    }
+
+    private interface ProgressCallback {
+        void onProgress(int committed, int total);
+    }
+
+    // Feed a BulkWriter of full 500-delete batches and wait for it to finish
+    private BulkWriter.Result run(WriterTask task, ProgressCallback progress) throws InterruptedException {
+        AtomicReference<BulkWriter.Result> outcome = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+
+        BulkWriter writer = new BulkWriter(db, BulkWriter.MAX_OPS_PER_BATCH, MAX_IN_FLIGHT, new BulkWriter.Listener() {
+            @Override
+            public void onProgress(int committedRecords, int failedRecords, int totalRecords) {
+                if (progress != null) {
+                    progress.onProgress(committedRecords, totalRecords);
+                }
+            }
+
+            @Override
+            public void onBatchCommitted(List<String> recordKeys) {
+                // Progress is reported through onProgress
+            }
+
+            @Override
+            public void onComplete(BulkWriter.Result result) {
+                outcome.set(result);
+                done.countDown();
+            }
+        });
+
+        try {
+            task.addWrites(writer);
+        } finally {
+            // Lets the writer report even when adding stopped early
+            writer.close();
+        }
+
+        // BulkWriter reports on the main thread; wait for it here
+        done.await();
+        return outcome.get();
+    }
+}
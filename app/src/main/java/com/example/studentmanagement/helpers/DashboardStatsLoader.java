@@ -0,0 +1,117 @@
+package com.example.studentmanagement.helpers;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Dashboard statistics computed with Firestore count() aggregations, so each stat
+ * costs a single aggregation read instead of downloading the collection.
+ * Results are cached in SharedPreferences and reused while they are fresh.
+ */
+public class DashboardStatsLoader {
+    private static final String TAG = "DashboardStatsLoader";
+    private static final String PREFS_NAME = "dashboard_stats";
+
+    public static final String STAT_STUDENTS = "students";
+    public static final String STAT_USERS = "users";
+    public static final String STAT_CERTIFICATES = "certificates";
+    public static final String STAT_EXPIRING_CERTIFICATES = "expiringCertificates";
+
+    // Cached counts younger than this are shown without asking the server
+    public static final long STALE_AFTER_MS = 5 * 60 * 1000;
+    // Certificates expiring within this many days count as "expiring"
+    public static final int EXPIRING_WITHIN_DAYS = 30;
+
+    private final FirebaseFirestore db;
+    private final SharedPreferences prefs;
+
+    public interface StatsListener {
+        /**
+         * @param fromCache True if the value came from the local cache
+         */
+        void onStatLoaded(String stat, long count, boolean fromCache);
+        void onStatError(String stat, Exception e);
+    }
+
+    public DashboardStatsLoader(Context context, FirebaseFirestore db) {
+        this.db = db;
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Deliver the cached value right away if there is one, then count on the server
+     * unless the cached value is still fresh or forceRefresh is set
+     */
+    public void load(String stat, boolean forceRefresh, StatsListener listener) {
+        boolean hasCached = prefs.contains(countKey(stat));
+        if (hasCached) {
+            listener.onStatLoaded(stat, prefs.getLong(countKey(stat), 0), true);
+            long age = System.currentTimeMillis() - prefs.getLong(timeKey(stat), 0);
+            if (!forceRefresh && age >= 0 && age < STALE_AFTER_MS) {
+                return;
+            }
+        }
+
+        queryFor(stat).count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(snapshot -> {
+                    long count = snapshot.getCount();
+                    prefs.edit()
+                            .putLong(countKey(stat), count)
+                            .putLong(timeKey(stat), System.currentTimeMillis())
+                            .apply();
+                    listener.onStatLoaded(stat, count, false);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error counting " + stat, e);
+                    listener.onStatError(stat, e);
+                });
+    }
+
+    /**
+     * Mark a stat stale, e.g. after an import changed the collection
+     */
+    public void invalidate(String stat) {
+        prefs.edit().remove(timeKey(stat)).apply();
+    }
+
+    private Query queryFor(String stat) {
+        switch (stat) {
+            case STAT_STUDENTS:
+                return db.collection("students");
+            case STAT_USERS:
+                return db.collection("users");
+            case STAT_CERTIFICATES:
+                return db.collection("certificates");
+            case STAT_EXPIRING_CERTIFICATES:
+                // Expiry dates are stored as yyyy-MM-dd, so string order is date order
+                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+                Calendar calendar = Calendar.getInstance();
+                String today = dateFormat.format(calendar.getTime());
+                calendar.add(Calendar.DAY_OF_YEAR, EXPIRING_WITHIN_DAYS);
+                String limit = dateFormat.format(calendar.getTime());
+                return db.collection("certificates")
+                        .whereGreaterThanOrEqualTo("expiryDate", today)
+                        .whereLessThanOrEqualTo("expiryDate", limit);
+            default:
+                throw new IllegalArgumentException("Unknown stat: " + stat);
+        }
+    }
+
+    private static String countKey(String stat) {
+        return stat + "_count";
+    }
+
+    private static String timeKey(String stat) {
+        return stat + "_updated_at";
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.studentmanagement.helpers;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves one string field of documents in a collection by document id, e.g. a
+ * student's name for a certificate row. Values are kept in an LRU cache, lookups for
+ * an id already in flight share the same request, and misses collected during one
+ * main-loop pass are fetched together with whereIn(documentId) queries.
+ * Cached values can optionally expire after a time-to-live.
+ * Must be used from the main thread.
+ */
+public class DocumentFieldResolver {
+    private static final String TAG = "DocumentFieldResolver";
+
+    // Firestore accepts at most 30 values in a whereIn filter
+    public static final int MAX_IDS_PER_QUERY = 30;
+    public static final int DEFAULT_CACHE_SIZE = 500;
+
+    // Cached for documents that do not exist or lack the field, so they aren't fetched again
+    private static final String MISSING = "";
+
+    private static DocumentFieldResolver studentNameResolver;
+
+    private final FirebaseFirestore db;
+    private final String collection;
+    private final String field;
+    private final LruCache<String, CacheEntry> cache;
+    private final long ttlMs;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // id -> callbacks waiting for it, for ids queued or in flight
+    private final Map<String, List<Callback>> pending = new HashMap<>();
+    // ids not yet sent to Firestore
+    private final Set<String> queued = new LinkedHashSet<>();
+    private boolean flushScheduled = false;
+
+    // Metrics
+    private long hits = 0;
+    private long misses = 0;
+    private long coalesced = 0;
+    private long queries = 0;
+
+    private static class CacheEntry {
+        final String value;
+        final long fetchedAt;
+
+        CacheEntry(String value, long fetchedAt) {
+            this.value = value;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    public interface Callback {
+        /**
+         * @param value The field value, or null if the document or field is missing
+         *              or the lookup failed
+         */
+        void onResolved(String id, String value);
+    }
+
+    public DocumentFieldResolver(FirebaseFirestore db, String collection, String field, int cacheSize) {
+        this(db, collection, field, cacheSize, 0);
+    }
+
+    /**
+     * @param ttlMs How long a cached value stays valid; 0 keeps it until evicted
+     */
+    public DocumentFieldResolver(FirebaseFirestore db, String collection, String field, int cacheSize, long ttlMs) {
+        this.db = db;
+        this.collection = collection;
+        this.field = field;
+        this.cache = new LruCache<>(cacheSize);
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Shared resolver for students/{id}.name
+     */
+    public static DocumentFieldResolver getStudentNameResolver() {
+        if (studentNameResolver == null) {
+            studentNameResolver = new DocumentFieldResolver(
+                    FirebaseFirestore.getInstance(), "students", "name", DEFAULT_CACHE_SIZE);
+        }
+        return studentNameResolver;
+    }
+
+    /**
+     * Look up the value for an id. Cached values are delivered immediately,
+     * everything else once the next batched query completes.
+     */
+    public void resolve(String id, Callback callback) {
+        if (id == null || id.isEmpty()) {
+            callback.onResolved(id, null);
+            return;
+        }
+
+        CacheEntry cached = cache.get(id);
+        if (cached != null && isExpired(cached)) {
+            cache.remove(id);
+            cached = null;
+        }
+        if (cached != null) {
+            hits++;
+            callback.onResolved(id, MISSING.equals(cached.value) ? null : cached.value);
+            return;
+        }
+
+        List<Callback> waiting = pending.get(id);
+        if (waiting != null) {
+            // Already queued or in flight; just wait for that result
+            coalesced++;
+            waiting.add(callback);
+            return;
+        }
+
+        misses++;
+        waiting = new ArrayList<>(1);
+        waiting.add(callback);
+        pending.put(id, waiting);
+        queued.add(id);
+        scheduleFlush();
+    }
+
+    /**
+     * Seed the cache with a value already known locally, e.g. after a student was edited
+     */
+    public void put(String id, String value) {
+        if (id != null) {
+            cache.put(id, new CacheEntry(value != null ? value : MISSING, SystemClock.elapsedRealtime()));
+        }
+    }
+
+    public void invalidate(String id) {
+        if (id != null) {
+            cache.remove(id);
+        }
+    }
+
+    public void clear() {
+        cache.evictAll();
+    }
+
+    private boolean isExpired(CacheEntry entry) {
+        return ttlMs > 0 && SystemClock.elapsedRealtime() - entry.fetchedAt > ttlMs;
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        // Posting lets every row bound in the same layout pass join one batch
+        mainHandler.post(this::flush);
+    }
+
+    private void flush() {
+        flushScheduled = false;
+        if (queued.isEmpty()) {
+            return;
+        }
+
+        List<String> ids = new ArrayList<>(queued);
+        queued.clear();
+
+        for (int start = 0; start < ids.size(); start += MAX_IDS_PER_QUERY) {
+            List<String> chunk = ids.subList(start, Math.min(start + MAX_IDS_PER_QUERY, ids.size()));
+            fetch(new ArrayList<>(chunk));
+        }
+    }
+
+    private void fetch(List<String> ids) {
+        queries++;
+        db.collection(collection)
+                .whereIn(FieldPath.documentId(), ids)
+                .get()
+                .addOnSuccessListener(queryDocumentSnapshots -> {
+                    Map<String, String> values = new HashMap<>();
+                    for (DocumentSnapshot document : queryDocumentSnapshots.getDocuments()) {
+                        values.put(document.getId(), document.getString(field));
+                    }
+
+                    long now = SystemClock.elapsedRealtime();
+                    for (String id : ids) {
+                        String value = values.get(id);
+                        if (value == null || value.isEmpty()) {
+                            value = MISSING;
+                        }
+                        cache.put(id, new CacheEntry(value, now));
+                        deliver(id, MISSING.equals(value) ? null : value);
+                    }
+                    Log.d(TAG, collection + "." + field + " " + getMetricsSummary());
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error resolving " + collection + "." + field, e);
+                    // Not cached, so the next bind tries again
+                    for (String id : ids) {
+                        deliver(id, null);
+                    }
+                });
+    }
+
+    private void deliver(String id, String value) {
+        List<Callback> callbacks = pending.remove(id);
+        if (callbacks == null) {
+            return;
+        }
+        for (Callback callback : callbacks) {
+            callback.onResolved(id, value);
+        }
+    }
+
+    public long getHitCount() {
+        return hits;
+    }
+
+    public long getMissCount() {
+        return misses;
+    }
+
+    // Lookups that joined a request already queued or in flight
+    public long getCoalescedCount() {
+        return coalesced;
+    }
+
+    public long getQueryCount() {
+        return queries;
+    }
+
+    public String getMetricsSummary() {
+        return "hits=" + hits
+                + " misses=" + misses
+                + " coalesced=" + coalesced
+                + " queries=" + queries
+                + " cached=" + cache.size();
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.studentmanagement.helpers;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How screens read Firestore, configured per collection.
+ * With {@link Strategy#CACHE_THEN_SERVER} a read is first answered from the local
+ * persistent cache, so the screen renders without waiting for the network, and then
+ * again from the server once it responds. Callbacks can therefore fire twice; the
+ * second result replaces the first. A cache miss (nothing cached yet) goes straight
+ * to the server. Hit ratio and time to first result are tracked for tuning.
+ */
+public class FirestoreReadPolicy {
+    private static final String TAG = "FirestoreReadPolicy";
+
+    public enum Strategy {
+        // Wait for the server, as a plain get() does when online
+        SERVER,
+        // Render cached data first, then reconcile with the server
+        CACHE_THEN_SERVER
+    }
+
+    private static FirestoreReadPolicy instance;
+
+    private final Map<String, Strategy> strategies = new HashMap<>();
+    private Strategy defaultStrategy = Strategy.CACHE_THEN_SERVER;
+
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final AtomicLong cacheMisses = new AtomicLong();
+    private final AtomicLong firstResults = new AtomicLong();
+    private final AtomicLong totalFirstResultMs = new AtomicLong();
+    private final AtomicLong cacheFirstResults = new AtomicLong();
+    private final AtomicLong totalCacheFirstResultMs = new AtomicLong();
+
+    public interface Callback<T> {
+        /**
+         * @param fromCache True for the cached answer; a server answer may follow
+         */
+        void onResult(@NonNull T result, boolean fromCache);
+
+        /**
+         * Server read failed. If a cached result was delivered before, the screen
+         * keeps showing it.
+         */
+        void onError(@NonNull Exception e, boolean hadCachedResult);
+    }
+
+    public interface SnapshotCallback {
+        /**
+         * @param reset True for the first snapshot delivered: apply all its documents,
+         *              not just its changes. Later snapshots are applied as changes
+         */
+        void onSnapshot(@NonNull QuerySnapshot snapshot, boolean reset);
+
+        /**
+         * The listener failed and has stopped; nothing more will be delivered
+         */
+        void onError(@NonNull Exception e);
+    }
+
+    public static synchronized FirestoreReadPolicy get() {
+        if (instance == null) {
+            instance = new FirestoreReadPolicy();
+            // Login history is an audit trail; always show what the server has
+            instance.setStrategy("loginHistory", Strategy.SERVER);
+        }
+        return instance;
+    }
+
+    public synchronized void setStrategy(String collection, Strategy strategy) {
+        strategies.put(collection, strategy);
+    }
+
+    public synchronized void setDefaultStrategy(Strategy strategy) {
+        defaultStrategy = strategy;
+    }
+
+    public synchronized Strategy getStrategy(String collection) {
+        Strategy strategy = strategies.get(collection);
+        return strategy != null ? strategy : defaultStrategy;
+    }
+
+    /**
+     * Run a query following the collection's strategy
+     * @param collection Collection the query reads, to pick the strategy
+     */
+    public void get(String collection, Query query, Callback<QuerySnapshot> callback) {
+        read(collection, query::get, snapshot -> !snapshot.isEmpty(), callback);
+    }
+
+    /**
+     * Read a document following its collection's strategy
+     */
+    public void get(DocumentReference document, Callback<DocumentSnapshot> callback) {
+        read(document.getParent().getId(), document::get, DocumentSnapshot::exists, callback);
+    }
+
+    /**
+     * Keep a snapshot listener on a query following the collection's strategy.
+     * With {@link Strategy#CACHE_THEN_SERVER} the cached result is delivered first;
+     * with {@link Strategy#SERVER} snapshots are held back until the server has answered.
+     * The caller removes the returned registration when the screen goes away.
+     */
+    public ListenerRegistration listen(String collection, Query query, SnapshotCallback callback) {
+        long start = SystemClock.elapsedRealtime();
+        boolean serverOnly = getStrategy(collection) == Strategy.SERVER;
+        boolean[] delivered = {false};
+        boolean[] cacheChecked = {false};
+
+        return query.addSnapshotListener(MetadataChanges.INCLUDE, (snapshot, e) -> {
+            if (e != null) {
+                Log.w(TAG, "Snapshot listener on " + collection + " failed", e);
+                callback.onError(e);
+                return;
+            }
+            if (snapshot == null) {
+                return;
+            }
+            boolean fromCache = snapshot.getMetadata().isFromCache();
+            if (!cacheChecked[0]) {
+                cacheChecked[0] = true;
+                if (fromCache && !snapshot.isEmpty()) {
+                    cacheHits.incrementAndGet();
+                } else {
+                    cacheMisses.incrementAndGet();
+                }
+            }
+            if (fromCache && serverOnly && !delivered[0]) {
+                // The collection wants the server's answer
+                return;
+            }
+            if (!delivered[0]) {
+                recordFirstResult(start, fromCache);
+            }
+            boolean reset = !delivered[0];
+            delivered[0] = true;
+            callback.onSnapshot(snapshot, reset);
+        });
+    }
+
+    private interface Reader<T> {
+        Task<T> read(Source source);
+    }
+
+    private interface HitCheck<T> {
+        boolean isHit(T result);
+    }
+
+    private <T> void read(String collection, Reader<T> reader, HitCheck<T> hitCheck, Callback<T> callback) {
+        long start = SystemClock.elapsedRealtime();
+        if (getStrategy(collection) == Strategy.SERVER) {
+            readServer(reader, callback, start, false);
+            return;
+        }
+
+        reader.read(Source.CACHE).addOnCompleteListener(cacheTask -> {
+            boolean hit = cacheTask.isSuccessful() && cacheTask.getResult() != null
+                    && hitCheck.isHit(cacheTask.getResult());
+            if (hit) {
+                cacheHits.incrementAndGet();
+                recordFirstResult(start, true);
+                callback.onResult(cacheTask.getResult(), true);
+            } else {
+                cacheMisses.incrementAndGet();
+            }
+            readServer(reader, callback, start, hit);
+        });
+    }
+
+    private <T> void readServer(Reader<T> reader, Callback<T> callback, long start, boolean hadCachedResult) {
+        reader.read(Source.SERVER).addOnCompleteListener(serverTask -> {
+            if (!hadCachedResult) {
+                recordFirstResult(start, false);
+            }
+            if (serverTask.isSuccessful() && serverTask.getResult() != null) {
+                callback.onResult(serverTask.getResult(), false);
+            } else {
+                Exception e = serverTask.getException() != null ? serverTask.getException()
+                        : new IllegalStateException("Empty server result");
+                Log.w(TAG, "Server read failed" + (hadCachedResult ? ", keeping cached result" : ""), e);
+                callback.onError(e, hadCachedResult);
+            }
+        });
+    }
+
+    private void recordFirstResult(long start, boolean fromCache) {
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        firstResults.incrementAndGet();
+        totalFirstResultMs.addAndGet(elapsed);
+        if (fromCache) {
+            cacheFirstResults.incrementAndGet();
+            totalCacheFirstResultMs.addAndGet(elapsed);
+        }
+    }
+
+    public double getCacheHitRatio() {
+        long hits = cacheHits.get();
+        long total = hits + cacheMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public String getMetricsSummary() {
+        long results = firstResults.get();
+        long cached = cacheFirstResults.get();
+        long server = results - cached;
+        return String.format(Locale.US,
+                "cache hits=%d misses=%d ratio=%.2f, first result avg=%dms (cache %dms, server %dms)",
+                cacheHits.get(), cacheMisses.get(), getCacheHitRatio(),
+                results == 0 ? 0 : totalFirstResultMs.get() / results,
+                cached == 0 ? 0 : totalCacheFirstResultMs.get() / cached,
+                server == 0 ? 0 : (totalFirstResultMs.get() - totalCacheFirstResultMs.get()) / server);
+    }
+}
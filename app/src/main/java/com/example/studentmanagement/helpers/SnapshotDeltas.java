@@ -0,0 +1,108 @@
+package com.example.studentmanagement.helpers;
+
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.List;
+
+/**
+ * Applies a snapshot listener's document changes to a list backing a RecyclerView
+ * adapter, so only the rows whose documents changed are touched. Items are matched
+ * by document ID, which also makes local updates made before the listener fires
+ * (see {@link #upsert} and {@link #remove}) safe to repeat.
+ */
+public final class SnapshotDeltas {
+
+    public interface Mapper<T> {
+        /**
+         * @return The item for a document, or null if it should not be listed
+         */
+        @Nullable
+        T map(DocumentSnapshot document);
+    }
+
+    public interface IdOf<T> {
+        String idOf(T item);
+    }
+
+    private SnapshotDeltas() {
+    }
+
+    /**
+     * @param reset True to replace the list with all documents of the snapshot
+     */
+    public static <T> void apply(QuerySnapshot snapshot, boolean reset, List<T> list,
+                                 Mapper<T> mapper, IdOf<T> idOf, RecyclerView.Adapter<?> adapter) {
+        if (reset) {
+            list.clear();
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                T item = mapper.map(document);
+                if (item != null) {
+                    list.add(item);
+                }
+            }
+            adapter.notifyDataSetChanged();
+            return;
+        }
+
+        for (DocumentChange change : snapshot.getDocumentChanges()) {
+            DocumentSnapshot document = change.getDocument();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                remove(list, document.getId(), idOf, adapter);
+                continue;
+            }
+            T item = mapper.map(document);
+            if (item == null) {
+                // No longer listed, e.g. a user promoted to admin
+                remove(list, document.getId(), idOf, adapter);
+            } else {
+                insertOrReplace(list, item, change.getNewIndex(), idOf, adapter);
+            }
+        }
+    }
+
+    /**
+     * Add an item at the end, or replace the item with the same ID
+     */
+    public static <T> void upsert(List<T> list, T item, IdOf<T> idOf, RecyclerView.Adapter<?> adapter) {
+        insertOrReplace(list, item, list.size(), idOf, adapter);
+    }
+
+    public static <T> void remove(List<T> list, String id, IdOf<T> idOf, RecyclerView.Adapter<?> adapter) {
+        int index = indexOf(list, id, idOf);
+        if (index >= 0) {
+            list.remove(index);
+            adapter.notifyItemRemoved(index);
+        }
+    }
+
+    private static <T> void insertOrReplace(List<T> list, T item, int position,
+                                            IdOf<T> idOf, RecyclerView.Adapter<?> adapter) {
+        int index = indexOf(list, idOf.idOf(item), idOf);
+        if (index >= 0) {
+            list.set(index, item);
+            adapter.notifyItemChanged(index);
+        } else {
+            // Filtered-out documents can make the query index run past the list
+            int insertAt = Math.max(0, Math.min(position, list.size()));
+            list.add(insertAt, item);
+            adapter.notifyItemInserted(insertAt);
+        }
+    }
+
+    private static <T> int indexOf(List<T> list, String id, IdOf<T> idOf) {
+        if (id == null) {
+            return -1;
+        }
+        for (int i = 0; i < list.size(); i++) {
+            if (id.equals(idOf.idOf(list.get(i)))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,310 @@
+package com.example.studentmanagement.helpers;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.studentmanagement.models.Student;
+import com.example.studentmanagement.repository.StudentRepository;
+import com.example.studentmanagement.utils.StudentSortOption;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps a live window over the "students" collection, in the selected sort order, that
+ * grows one page at a time as the user scrolls. Each page has its own snapshot listener
+ * starting after the last document of the page before, so loading a page reads only that
+ * page. The last page listens to the next {@link #PAGE_SIZE} students; once a page follows
+ * it, it is moved to a listener ending at its last document, so students inserted into it
+ * stay in the window instead of being pushed past its limit. That costs one more read of
+ * that page, and every page is read at most twice however far the user scrolls.
+ * After a page's first snapshot only the documents that changed are delivered, so edits,
+ * imports and deletes made anywhere cost one read per changed student instead of a reload.
+ * Snapshots follow {@link FirestoreReadPolicy}, so cached students show before the server responds.
+ */
+public class StudentPagingSource {
+    private static final String TAG = "StudentPagingSource";
+
+    public static final int PAGE_SIZE = 50;
+    // Start fetching the next page when this many rows are left below the last visible one
+    public static final int PREFETCH_DISTANCE = 15;
+
+    private final StudentRepository repository;
+    private final PageListener listener;
+    private StudentSortOption sortOption = StudentSortOption.DEFAULT;
+
+    // In sort order; each page covers the students after the last document of the one before
+    private final List<Page> pages = new ArrayList<>();
+    // Page that last delivered each student, so one moving to another page is not
+    // removed when the page it left reports it gone after the new page added it
+    private final Map<String, Page> owners = new HashMap<>();
+    private boolean windowDelivered = false;
+    private boolean loading = false;
+    private boolean endReached = false;
+    // Incremented on every new listener so callbacks from a replaced one are ignored
+    private int generation = 0;
+
+    public interface PageListener {
+        /**
+         * Every student in the window, replacing what was delivered before
+         */
+        void onStudentsReset(List<Student> students);
+
+        /**
+         * Students added to or changed in the window, and IDs of those that left it
+         */
+        void onStudentsChanged(List<Student> upserted, List<String> removedIds);
+
+        void onPageError(Exception e);
+    }
+
+    private static class Page {
+        // Last document of the page before; null for the first page
+        final DocumentSnapshot after;
+        // Last document delivered, where the next page starts
+        DocumentSnapshot last;
+        final Set<String> ids = new HashSet<>();
+        ListenerRegistration registration;
+        int listenerGeneration;
+
+        Page(DocumentSnapshot after) {
+            this.after = after;
+        }
+    }
+
+    private interface Subscription {
+        ListenerRegistration listen(FirestoreReadPolicy.SnapshotCallback callback);
+    }
+
+    public StudentPagingSource(StudentRepository repository, PageListener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    /**
+     * Listen to the first page, dropping any pages listened to before
+     */
+    public void refresh() {
+        stop();
+        pages.clear();
+        owners.clear();
+        windowDelivered = false;
+        endReached = false;
+        loading = false;
+        loadNextPage();
+    }
+
+    /**
+     * Order the window by another sort option. The window restarts at the first page of
+     * the new order, unless it already holds the whole collection: sorting that in
+     * memory gives the same order without reading it again.
+     * @return True if the window restarts
+     */
+    public boolean setSortOption(StudentSortOption option) {
+        boolean sameQuery = option.getField().equals(sortOption.getField())
+                && option.isDescending() == sortOption.isDescending();
+        sortOption = option;
+        if (sameQuery || (endReached && isLive())) {
+            return false;
+        }
+        refresh();
+        return true;
+    }
+
+    /**
+     * Add a page after the last one; does nothing if a page is in flight or the whole
+     * collection is already in the window
+     */
+    public void loadNextPage() {
+        if (loading || endReached) {
+            return;
+        }
+        final Page tail = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (tail != null && tail.last == null) {
+            return; // Nothing delivered yet to start the next page after
+        }
+        loading = true;
+
+        final StudentSortOption sort = sortOption;
+        if (tail != null) {
+            final DocumentSnapshot last = tail.last;
+            listenTo(tail, callback -> repository.listenRange(sort, tail.after, last, callback));
+        }
+        final Page page = new Page(tail != null ? tail.last : null);
+        pages.add(page);
+        listenTo(page, callback -> repository.listenPage(sort, page.after, PAGE_SIZE, callback));
+    }
+
+    private void listenTo(Page page, Subscription subscription) {
+        if (page.registration != null) {
+            page.registration.remove();
+        }
+        final int listenerGeneration = ++generation;
+        page.listenerGeneration = listenerGeneration;
+        page.registration = subscription.listen(new FirestoreReadPolicy.SnapshotCallback() {
+            @Override
+            public void onSnapshot(@NonNull QuerySnapshot snapshot, boolean reset) {
+                if (page.listenerGeneration != listenerGeneration) {
+                    return;
+                }
+                onPageSnapshot(page, snapshot, reset);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e) {
+                if (page.listenerGeneration != listenerGeneration) {
+                    return;
+                }
+                page.registration = null;
+                if (isTail(page)) {
+                    loading = false;
+                }
+                Log.e(TAG, "Error listening to students", e);
+                if (listener != null) {
+                    listener.onPageError(e);
+                }
+            }
+        });
+    }
+
+    private boolean isTail(Page page) {
+        return !pages.isEmpty() && pages.get(pages.size() - 1) == page;
+    }
+
+    private void onPageSnapshot(Page page, QuerySnapshot snapshot, boolean reset) {
+        if (isTail(page)) {
+            if (reset) {
+                loading = false;
+            }
+            if (!snapshot.isEmpty()) {
+                page.last = snapshot.getDocuments().get(snapshot.size() - 1);
+            }
+            // A cached snapshot may be short only because the cache is incomplete
+            if (!snapshot.getMetadata().isFromCache()) {
+                endReached = snapshot.size() < PAGE_SIZE;
+            }
+        }
+
+        List<Student> upserted = new ArrayList<>();
+        List<String> removedIds = new ArrayList<>();
+        if (reset) {
+            // A new listener on the page: all it holds now, and whatever it held before and lost
+            Set<String> previousIds = new HashSet<>(page.ids);
+            page.ids.clear();
+            for (DocumentSnapshot document : snapshot.getDocuments()) {
+                previousIds.remove(document.getId());
+                upsert(page, document, upserted);
+            }
+            for (String id : previousIds) {
+                release(page, id, removedIds);
+            }
+        } else {
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                if (change.getType() == DocumentChange.Type.REMOVED) {
+                    page.ids.remove(change.getDocument().getId());
+                    release(page, change.getDocument().getId(), removedIds);
+                } else {
+                    upsert(page, change.getDocument(), upserted);
+                }
+            }
+        }
+
+        if (listener == null) {
+            return;
+        }
+        if (!windowDelivered) {
+            // The first page's first snapshot after a refresh
+            windowDelivered = true;
+            listener.onStudentsReset(upserted);
+            return;
+        }
+        if (upserted.isEmpty() && removedIds.isEmpty()) {
+            return; // Metadata only, e.g. the server confirmed the cached result
+        }
+        Log.d(TAG, upserted.size() + " students added or changed, " + removedIds.size() + " removed");
+        listener.onStudentsChanged(upserted, removedIds);
+    }
+
+    private void upsert(Page page, DocumentSnapshot document, List<Student> upserted) {
+        page.ids.add(document.getId());
+        owners.put(document.getId(), page);
+        upserted.add(repository.toModel(document));
+    }
+
+    private void release(Page page, String id, List<String> removedIds) {
+        if (owners.get(id) == page) {
+            owners.remove(id);
+            removedIds.add(id);
+        }
+    }
+
+    /**
+     * Remove the listeners; call when the screen goes away
+     */
+    public void stop() {
+        for (Page page : pages) {
+            page.listenerGeneration = 0;
+            if (page.registration != null) {
+                page.registration.remove();
+                page.registration = null;
+            }
+        }
+    }
+
+    /**
+     * True while every page's listener is delivering changes, so there is nothing to refetch
+     */
+    public boolean isLive() {
+        if (pages.isEmpty()) {
+            return false;
+        }
+        for (Page page : pages) {
+            if (page.registration == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prefetch the next page whenever the user scrolls near the end of the list
+     */
+    public void attachTo(RecyclerView recyclerView) {
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) {
+                    return;
+                }
+                RecyclerView.LayoutManager layoutManager = rv.getLayoutManager();
+                if (!(layoutManager instanceof LinearLayoutManager)) {
+                    return;
+                }
+                int lastVisible = ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+                int itemCount = layoutManager.getItemCount();
+                if (lastVisible >= itemCount - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+}
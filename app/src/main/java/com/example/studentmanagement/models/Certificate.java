@@ -1,7 +1,7 @@
     package com.example.studentmanagement.models;
 
-    import com.google.firebase.database.Exclude;
-    import com.google.firebase.database.IgnoreExtraProperties;
+    import com.google.firebase.firestore.Exclude;
+    import com.google.firebase.firestore.IgnoreExtraProperties;
 
     import java.io.Serializable;
     import java.util.HashMap;
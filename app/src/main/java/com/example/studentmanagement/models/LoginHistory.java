@@ -1,7 +1,7 @@
 package com.example.studentmanagement.models;
 
-import com.google.firebase.database.Exclude;
-import com.google.firebase.database.IgnoreExtraProperties;
+import com.google.firebase.firestore.Exclude;
+import com.google.firebase.firestore.IgnoreExtraProperties;
 
 import java.io.Serializable;
 import java.util.HashMap;
@@ -11,6 +11,9 @@ import java.util.Map;
 public class LoginHistory implements Serializable {
     private String id;
     private String userId;
+    // Epoch milliseconds; stored as a number so it orders and range-filters as a time
+    private long loginAt;
+    // Formatted time written before loginAt existed; only read for records not yet migrated
     private String loginDate;
     private String ipAddress;
     private String deviceInfo;
@@ -20,9 +23,9 @@ public class LoginHistory implements Serializable {
     public LoginHistory() {
     }
 
-    public LoginHistory(String userId, String loginDate, String ipAddress, String deviceInfo, boolean successful) {
+    public LoginHistory(String userId, long loginAt, String ipAddress, String deviceInfo, boolean successful) {
         this.userId = userId;
-        this.loginDate = loginDate;
+        this.loginAt = loginAt;
         this.ipAddress = ipAddress;
         this.deviceInfo = deviceInfo;
         this.successful = successful;
@@ -45,6 +48,14 @@ public class LoginHistory implements Serializable {
         this.userId = userId;
     }
 
+    public long getLoginAt() {
+        return loginAt;
+    }
+
+    public void setLoginAt(long loginAt) {
+        this.loginAt = loginAt;
+    }
+
     public String getLoginDate() {
         return loginDate;
     }
@@ -81,7 +92,7 @@ public class LoginHistory implements Serializable {
     public Map<String, Object> toMap() {
         HashMap<String, Object> result = new HashMap<>();
         result.put("userId", userId);
-        result.put("loginDate", loginDate);
+        result.put("loginAt", loginAt);
         result.put("ipAddress", ipAddress);
         result.put("deviceInfo", deviceInfo);
         result.put("successful", successful);  // Use the field name directly
@@ -0,0 +1,13 @@
+package com.example.studentmanagement.repository;
+
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.models.Certificate;
+import com.google.firebase.firestore.ListenerRegistration;
+
+public interface CertificateRepository extends Repository<Certificate> {
+
+    /**
+     * Listen to the certificates of one student
+     */
+    ListenerRegistration listenByStudent(String studentId, FirestoreReadPolicy.SnapshotCallback callback);
+}
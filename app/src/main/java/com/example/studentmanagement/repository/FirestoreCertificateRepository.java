@@ -0,0 +1,35 @@
+package com.example.studentmanagement.repository;
+
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.models.Certificate;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.Map;
+
+class FirestoreCertificateRepository extends FirestoreRepository<Certificate> implements CertificateRepository {
+
+    FirestoreCertificateRepository(FirebaseFirestore db) {
+        super(db, "certificates", Certificate.class);
+    }
+
+    @Override
+    protected String idOf(Certificate certificate) {
+        return certificate.getId();
+    }
+
+    @Override
+    protected void setId(Certificate certificate, String id) {
+        certificate.setId(id);
+    }
+
+    @Override
+    protected Map<String, Object> toMap(Certificate certificate) {
+        return certificate.toMap();
+    }
+
+    @Override
+    public ListenerRegistration listenByStudent(String studentId, FirestoreReadPolicy.SnapshotCallback callback) {
+        return listen(collection().whereEqualTo("studentId", studentId), callback);
+    }
+}
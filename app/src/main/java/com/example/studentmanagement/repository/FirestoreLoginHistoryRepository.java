@@ -0,0 +1,131 @@
+package com.example.studentmanagement.repository;
+
+import androidx.annotation.Nullable;
+
+import com.example.studentmanagement.models.LoginHistory;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+class FirestoreLoginHistoryRepository extends FirestoreRepository<LoginHistory> implements LoginHistoryRepository {
+    FirestoreLoginHistoryRepository(FirebaseFirestore db) {
+        super(db, "loginHistory", LoginHistory.class);
+    }
+
+    @Override
+    protected String idOf(LoginHistory loginHistory) {
+        return loginHistory.getId();
+    }
+
+    @Override
+    protected void setId(LoginHistory loginHistory, String id) {
+        loginHistory.setId(id);
+    }
+
+    @Override
+    protected Map<String, Object> toMap(LoginHistory loginHistory) {
+        return loginHistory.toMap();
+    }
+
+    @Override
+    public Task<Page> page(@Nullable String userId, @Nullable Date from, @Nullable Date to,
+                           @Nullable Cursor after, int limit) {
+        if (after != null && after.legacy) {
+            return legacyPage(userId, from, to, after.document, limit, new ArrayList<>(), null);
+        }
+
+        Query query = collection();
+        if (userId != null) {
+            query = query.whereEqualTo("userId", userId);
+        }
+        // Served by the (userId, loginAt) index in firestore.indexes.json
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo("loginAt", from.getTime());
+        }
+        if (to != null) {
+            query = query.whereLessThan("loginAt", to.getTime());
+        }
+        query = query.orderBy("loginAt", Query.Direction.DESCENDING);
+        if (after != null) {
+            query = query.startAfter(after.document);
+        }
+
+        // One extra document tells whether another page follows
+        return query.limit(limit + 1).get()
+                .onSuccessTask(snapshot -> {
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    int count = Math.min(limit, documents.size());
+                    List<LoginHistory> entries = new ArrayList<>(limit);
+                    for (int i = 0; i < count; i++) {
+                        entries.add(toModel(documents.get(i)));
+                    }
+                    if (documents.size() > limit) {
+                        return Tasks.forResult(new Page(entries, new Cursor(documents.get(limit - 1), false)));
+                    }
+                    // Every record with loginAt is listed; the older ones without it follow
+                    Cursor last = count > 0 ? new Cursor(documents.get(count - 1), false) : after;
+                    return legacyPage(userId, from, to, null, limit, entries, last);
+                });
+    }
+
+    /**
+     * Records written before loginAt existed, which only have a loginDate and are left
+     * out of queries on loginAt until {@link com.example.studentmanagement.utils.LoginHistoryBackfill}
+     * reaches them. All of them are older than any record with loginAt. loginDate is
+     * "yyyy-MM-dd HH:mm:ss" in the recording device's zone, so it sorts by time as text
+     * and a day's prefix bounds the date range.
+     * @param entries Entries already on this page, to fill up to limit
+     * @param lastNew Cursor after the records with loginAt on this page, for when no legacy record fits
+     */
+    private Task<Page> legacyPage(@Nullable String userId, @Nullable Date from, @Nullable Date to,
+                                  @Nullable DocumentSnapshot after, int limit, List<LoginHistory> entries,
+                                  @Nullable Cursor lastNew) {
+        SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.US);
+        Query query = collection();
+        if (userId != null) {
+            query = query.whereEqualTo("userId", userId);
+        }
+        // Served by the (userId, loginDate) index in firestore.indexes.json
+        if (from != null) {
+            query = query.whereGreaterThanOrEqualTo("loginDate", dayFormat.format(from));
+        }
+        if (to != null) {
+            query = query.whereLessThan("loginDate", dayFormat.format(to));
+        }
+        query = query.orderBy("loginDate", Query.Direction.DESCENDING);
+        if (after != null) {
+            query = query.startAfter(after);
+        }
+
+        int room = limit - entries.size();
+        return query.limit(room + 1).get()
+                .onSuccessTask(snapshot -> {
+                    List<DocumentSnapshot> documents = snapshot.getDocuments();
+                    int examined = 0;
+                    for (DocumentSnapshot document : documents) {
+                        if (entries.size() == limit) {
+                            break;
+                        }
+                        examined++;
+                        // Migrated records keep their loginDate; they were listed by loginAt
+                        if (!document.contains("loginAt")) {
+                            entries.add(toModel(document));
+                        }
+                    }
+                    Cursor cursor = null;
+                    if (documents.size() > room) {
+                        cursor = examined > 0 ? new Cursor(documents.get(examined - 1), true) : lastNew;
+                    }
+                    return Tasks.forResult(new Page(entries, cursor));
+                });
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.studentmanagement.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+
+import java.util.Map;
+
+/**
+ * Repository over one Firestore collection. Reads and listeners follow the
+ * collection's {@link FirestoreReadPolicy} strategy.
+ */
+abstract class FirestoreRepository<T> implements Repository<T> {
+    protected final FirebaseFirestore db;
+    private final String collectionName;
+    private final Class<T> type;
+
+    FirestoreRepository(FirebaseFirestore db, String collectionName, Class<T> type) {
+        this.db = db;
+        this.collectionName = collectionName;
+        this.type = type;
+    }
+
+    protected abstract String idOf(T item);
+
+    protected abstract void setId(T item, String id);
+
+    // Fields written for an item
+    protected abstract Map<String, Object> toMap(T item);
+
+    protected CollectionReference collection() {
+        return db.collection(collectionName);
+    }
+
+    @Override
+    public void get(String id, Callback<T> callback) {
+        FirestoreReadPolicy.get().get(collection().document(id), new FirestoreReadPolicy.Callback<DocumentSnapshot>() {
+            @Override
+            public void onResult(@NonNull DocumentSnapshot document, boolean fromCache) {
+                callback.onResult(toModel(document), fromCache);
+            }
+
+            @Override
+            public void onError(@NonNull Exception e, boolean hadCachedResult) {
+                callback.onError(e, hadCachedResult);
+            }
+        });
+    }
+
+    @Override
+    public Task<T> fetch(String id) {
+        return collection().document(id).get()
+                .onSuccessTask(document -> Tasks.forResult(toModel(document)));
+    }
+
+    @Override
+    public Task<Void> add(T item) {
+        DocumentReference document = collection().document();
+        setId(item, document.getId());
+        return document.set(toMap(item));
+    }
+
+    @Override
+    public Task<Void> set(T item) {
+        return collection().document(idOf(item)).set(toMap(item));
+    }
+
+    @Override
+    public Task<Void> update(String id, Map<String, Object> changes) {
+        return collection().document(id).update(changes);
+    }
+
+    @Override
+    public Task<Void> delete(String id) {
+        return collection().document(id).delete();
+    }
+
+    @Nullable
+    @Override
+    public T toModel(DocumentSnapshot document) {
+        if (document == null || !document.exists()) {
+            return null;
+        }
+        T item = document.toObject(type);
+        if (item != null) {
+            setId(item, document.getId());
+        }
+        return item;
+    }
+
+    protected ListenerRegistration listen(Query query, FirestoreReadPolicy.SnapshotCallback callback) {
+        return FirestoreReadPolicy.get().listen(collectionName, query, callback);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.studentmanagement.repository;
+
+import androidx.annotation.Nullable;
+
+import com.example.studentmanagement.helpers.CascadeDeleteService;
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.models.Student;
+import com.example.studentmanagement.utils.AppExecutors;
+import com.example.studentmanagement.utils.BatchOperationsUtil;
+import com.example.studentmanagement.utils.StudentSearchKeys;
+import com.example.studentmanagement.utils.StudentSortOption;
+import com.example.studentmanagement.utils.StudentUpserter;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class FirestoreStudentRepository extends FirestoreRepository<Student> implements StudentRepository {
+
+    FirestoreStudentRepository(FirebaseFirestore db) {
+        super(db, "students", Student.class);
+    }
+
+    @Override
+    protected String idOf(Student student) {
+        return student.getId();
+    }
+
+    @Override
+    protected void setId(Student student, String id) {
+        student.setId(id);
+    }
+
+    @Override
+    protected Map<String, Object> toMap(Student student) {
+        // Same fields an import writes, so both paths store identical documents
+        return BatchOperationsUtil.importedFields(student);
+    }
+
+    @Override
+    public Task<Void> update(String id, Map<String, Object> changes) {
+        return super.update(id, StudentUpserter.withoutStaleHash(StudentSearchKeys.withKeys(changes)));
+    }
+
+    @Override
+    public ListenerRegistration listenPage(StudentSortOption sort, @Nullable DocumentSnapshot after, int limit,
+                                           FirestoreReadPolicy.SnapshotCallback callback) {
+        return listen(sorted(sort, after).limit(limit), callback);
+    }
+
+    @Override
+    public ListenerRegistration listenRange(StudentSortOption sort, @Nullable DocumentSnapshot after,
+                                            DocumentSnapshot last, FirestoreReadPolicy.SnapshotCallback callback) {
+        return listen(sorted(sort, after).endAt(last), callback);
+    }
+
+    // Document cursors also compare document IDs, so students tied on the sort field
+    // fall on exactly one page
+    private Query sorted(StudentSortOption sort, @Nullable DocumentSnapshot after) {
+        Query.Direction direction = sort.isDescending() ? Query.Direction.DESCENDING : Query.Direction.ASCENDING;
+        Query query = collection().orderBy(sort.getField(), direction);
+        return after != null ? query.startAfter(after) : query;
+    }
+
+    @Override
+    public void deleteWithCertificates(List<String> studentIds, CascadeDeleteService.Listener listener) {
+        new CascadeDeleteService(db).deleteStudents(studentIds, listener);
+    }
+
+    @Override
+    public void updateAll(List<String> studentIds, Map<String, Object> changes,
+                          BatchOperationsUtil.BatchOperationListener listener) {
+        AppExecutors.get().bulk().execute(() -> BatchOperationsUtil.batchUpdateStudents(studentIds, changes, listener));
+    }
+
+    @Override
+    public Task<List<Student>> search(String query, int limit) {
+        String prefix = StudentSearchKeys.key(query);
+        if (prefix.isEmpty()) {
+            return Tasks.forResult(new ArrayList<>());
+        }
+
+        // One prefix range per key, run together; each is served by that key's index
+        List<Task<QuerySnapshot>> lookups = new ArrayList<>();
+        for (String keyField : new String[]{StudentSearchKeys.NAME, StudentSearchKeys.STUDENT_ID, StudentSearchKeys.EMAIL}) {
+            lookups.add(collection()
+                    .orderBy(keyField)
+                    .startAt(prefix)
+                    .endBefore(StudentSearchKeys.rangeEnd(prefix))
+                    .limit(limit)
+                    .get());
+        }
+
+        return Tasks.<QuerySnapshot>whenAllSuccess(lookups).onSuccessTask(snapshots -> {
+            // A student matching on several keys is listed once
+            Map<String, Student> matches = new LinkedHashMap<>();
+            for (QuerySnapshot snapshot : snapshots) {
+                for (DocumentSnapshot document : snapshot.getDocuments()) {
+                    Student student = toModel(document);
+                    if (student != null) {
+                        matches.put(student.getId(), student);
+                    }
+                }
+            }
+            List<Student> students = new ArrayList<>(matches.values());
+            Collections.sort(students, (s1, s2) ->
+                    StudentSearchKeys.key(s1.getName()).compareTo(StudentSearchKeys.key(s2.getName())));
+            return Tasks.forResult(students.size() > limit ? new ArrayList<>(students.subList(0, limit)) : students);
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.studentmanagement.repository;
+
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.models.User;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.Map;
+
+class FirestoreUserRepository extends FirestoreRepository<User> implements UserRepository {
+
+    FirestoreUserRepository(FirebaseFirestore db) {
+        super(db, "users", User.class);
+    }
+
+    @Override
+    protected String idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void setId(User user, String id) {
+        user.setId(id);
+    }
+
+    @Override
+    protected Map<String, Object> toMap(User user) {
+        return user.toMap();
+    }
+
+    @Override
+    public ListenerRegistration listenAll(FirestoreReadPolicy.SnapshotCallback callback) {
+        return listen(collection(), callback);
+    }
+}
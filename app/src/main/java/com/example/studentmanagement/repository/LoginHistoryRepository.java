@@ -0,0 +1,55 @@
+package com.example.studentmanagement.repository;
+
+import androidx.annotation.Nullable;
+
+import com.example.studentmanagement.models.LoginHistory;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Date;
+import java.util.List;
+
+public interface LoginHistoryRepository extends Repository<LoginHistory> {
+
+    /**
+     * Where the next page starts: after a document, in the records ordered by loginAt
+     * or in the older ones that only have a loginDate
+     */
+    class Cursor {
+        final DocumentSnapshot document;
+        final boolean legacy;
+
+        Cursor(DocumentSnapshot document, boolean legacy) {
+            this.document = document;
+            this.legacy = legacy;
+        }
+    }
+
+    class Page {
+        public final List<LoginHistory> entries;
+        // Pass to the next page request; null when there is nothing after this page
+        @Nullable
+        public final Cursor cursor;
+
+        public Page(List<LoginHistory> entries, @Nullable Cursor cursor) {
+            this.entries = entries;
+            this.cursor = cursor;
+        }
+
+        public boolean hasMore() {
+            return cursor != null;
+        }
+    }
+
+    /**
+     * One page of login attempts, newest first. The filters and the limit are part of
+     * the query, so a page costs at most limit reads however long the history is.
+     * Records from before loginAt existed follow all the others, until they are migrated.
+     * @param userId Only this user's attempts, or null for everyone's
+     * @param from   Earliest login included, or null for no lower bound
+     * @param to     Logins at or after this are left out, or null for no upper bound
+     * @param after  Cursor of the previous page, or null for the first page
+     */
+    Task<Page> page(@Nullable String userId, @Nullable Date from, @Nullable Date to,
+                    @Nullable Cursor after, int limit);
+}
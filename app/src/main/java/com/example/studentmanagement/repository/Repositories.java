@@ -0,0 +1,58 @@
+package com.example.studentmanagement.repository;
+
+import com.google.firebase.firestore.FirebaseFirestore;
+
+/**
+ * Where screens get their repositories. Firestore is the backend unless other
+ * implementations are installed, e.g. fakes in tests.
+ */
+public final class Repositories {
+    private static StudentRepository students;
+    private static CertificateRepository certificates;
+    private static UserRepository users;
+    private static LoginHistoryRepository loginHistory;
+
+    private Repositories() {
+    }
+
+    public static synchronized StudentRepository students() {
+        if (students == null) {
+            students = new FirestoreStudentRepository(FirebaseFirestore.getInstance());
+        }
+        return students;
+    }
+
+    public static synchronized CertificateRepository certificates() {
+        if (certificates == null) {
+            certificates = new FirestoreCertificateRepository(FirebaseFirestore.getInstance());
+        }
+        return certificates;
+    }
+
+    public static synchronized UserRepository users() {
+        if (users == null) {
+            users = new FirestoreUserRepository(FirebaseFirestore.getInstance());
+        }
+        return users;
+    }
+
+    public static synchronized LoginHistoryRepository loginHistory() {
+        if (loginHistory == null) {
+            loginHistory = new FirestoreLoginHistoryRepository(FirebaseFirestore.getInstance());
+        }
+        return loginHistory;
+    }
+
+    /**
+     * Replace the backend; repositories left null keep the Firestore implementation
+     */
+    public static synchronized void install(StudentRepository studentRepository,
+                                            CertificateRepository certificateRepository,
+                                            UserRepository userRepository,
+                                            LoginHistoryRepository loginHistoryRepository) {
+        students = studentRepository;
+        certificates = certificateRepository;
+        users = userRepository;
+        loginHistory = loginHistoryRepository;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.studentmanagement.repository;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+/**
+ * Reads and writes of one entity. Screens and dialogs go through a repository
+ * instead of the database, so every read shares the same cache policy and every
+ * bulk write the same batching. Get an instance from {@link Repositories}.
+ */
+public interface Repository<T> {
+
+    interface Callback<T> {
+        /**
+         * @param item      Null if there is no such item
+         * @param fromCache True for the cached answer; a server answer may follow
+         */
+        void onResult(@Nullable T item, boolean fromCache);
+
+        /**
+         * The server read failed. If a cached result was delivered before, the screen
+         * keeps showing it.
+         */
+        void onError(@NonNull Exception e, boolean hadCachedResult);
+    }
+
+    /**
+     * Read an item, answering from the local cache first when the collection allows it
+     */
+    void get(String id, Callback<T> callback);
+
+    /**
+     * Read an item from the server, e.g. to check an account before signing in.
+     * The task's result is null if there is no such item.
+     */
+    Task<T> fetch(String id);
+
+    /**
+     * Store a new item under a generated ID, which is set on the item right away
+     */
+    Task<Void> add(T item);
+
+    /**
+     * Store an item under its ID, replacing what was there
+     */
+    Task<Void> set(T item);
+
+    /**
+     * Change some fields of an existing item
+     */
+    Task<Void> update(String id, Map<String, Object> changes);
+
+    Task<Void> delete(String id);
+
+    /**
+     * Item of a document delivered by a listener, or null if the document is gone
+     */
+    @Nullable
+    T toModel(DocumentSnapshot document);
+}
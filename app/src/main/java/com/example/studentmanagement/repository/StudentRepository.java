@@ -0,0 +1,53 @@
+package com.example.studentmanagement.repository;
+
+import androidx.annotation.Nullable;
+
+import com.example.studentmanagement.helpers.CascadeDeleteService;
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.models.Student;
+import com.example.studentmanagement.utils.BatchOperationsUtil;
+import com.example.studentmanagement.utils.StudentSortOption;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.List;
+import java.util.Map;
+
+public interface StudentRepository extends Repository<Student> {
+
+    /**
+     * Listen to a page of students in a sort order
+     * @param after Last document of the page before, or null for the first page
+     * @param limit Number of students in the page
+     */
+    ListenerRegistration listenPage(StudentSortOption sort, @Nullable DocumentSnapshot after, int limit,
+                                    FirestoreReadPolicy.SnapshotCallback callback);
+
+    /**
+     * Listen to the students of a sort order up to a document, however many there
+     * become as students are added to or removed from that range
+     * @param after Last document of the page before, or null from the start
+     * @param last  Last document of the range, included
+     */
+    ListenerRegistration listenRange(StudentSortOption sort, @Nullable DocumentSnapshot after,
+                                     DocumentSnapshot last, FirestoreReadPolicy.SnapshotCallback callback);
+
+    /**
+     * Students whose name, student ID or email starts with the query, by name.
+     * Answered by the server's indexes, without loading the roster.
+     * @param limit Maximum number of students returned
+     */
+    Task<List<Student>> search(String query, int limit);
+
+    /**
+     * Delete students together with their certificates, in the background
+     */
+    void deleteWithCertificates(List<String> studentIds, CascadeDeleteService.Listener listener);
+
+    /**
+     * Apply the same field changes to many students in batched writes, in the background
+     */
+    void updateAll(List<String> studentIds, Map<String, Object> changes,
+                   BatchOperationsUtil.BatchOperationListener listener);
+}
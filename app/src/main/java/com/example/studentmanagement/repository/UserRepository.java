@@ -0,0 +1,13 @@
+package com.example.studentmanagement.repository;
+
+import com.example.studentmanagement.helpers.FirestoreReadPolicy;
+import com.example.studentmanagement.models.User;
+import com.google.firebase.firestore.ListenerRegistration;
+
+public interface UserRepository extends Repository<User> {
+
+    /**
+     * Listen to every user account
+     */
+    ListenerRegistration listenAll(FirestoreReadPolicy.SnapshotCallback callback);
+}
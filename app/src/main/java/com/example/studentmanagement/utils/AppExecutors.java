@@ -0,0 +1,265 @@
+package com.example.studentmanagement.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * App-wide thread pools, so background work reuses a few long-lived threads instead
+ * of creating an executor per call:
+ * <ul>
+ *     <li>diskIO: reading and writing files</li>
+ *     <li>cpu: parsing, searching, sorting</li>
+ *     <li>network: short work that blocks on Firestore</li>
+ *     <li>bulk: jobs that block on Firestore for minutes, such as imports, backfills,
+ *     bulk updates and cascade deletes; they queue for their few threads without limit,
+ *     so they never crowd out network work or get rejected</li>
+ *     <li>parallel: fork-join pool for splitting one large job across cores</li>
+ *     <li>scheduler: delayed work such as retries</li>
+ * </ul>
+ * The other pools have bounded queues and reject work when full; each pool keeps queue
+ * depth and wait/run time metrics.
+ * Work submitted with a LifecycleOwner is cancelled when the owner is destroyed.
+ */
+public class AppExecutors {
+    private static final String TAG = "AppExecutors";
+
+    private static final int CPU_COUNT = Math.max(1, Runtime.getRuntime().availableProcessors());
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static AppExecutors instance;
+
+    private final InstrumentedExecutor diskIO;
+    private final InstrumentedExecutor cpu;
+    private final InstrumentedExecutor network;
+    private final InstrumentedExecutor bulk;
+    private final ForkJoinPool parallel;
+    private final ScheduledExecutorService scheduler;
+    private final Executor mainThread;
+
+    private AppExecutors() {
+        diskIO = new InstrumentedExecutor("disk", 2, QUEUE_CAPACITY);
+        cpu = new InstrumentedExecutor("cpu", CPU_COUNT, QUEUE_CAPACITY);
+        network = new InstrumentedExecutor("network", 4, QUEUE_CAPACITY);
+        bulk = new InstrumentedExecutor("bulk", 3, Integer.MAX_VALUE);
+        parallel = new ForkJoinPool(CPU_COUNT, new NamedForkJoinThreadFactory(), null, false);
+        scheduler = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("scheduler"));
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    public static synchronized AppExecutors get() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    public ExecutorService cpu() {
+        return cpu;
+    }
+
+    public ExecutorService network() {
+        return network;
+    }
+
+    public ExecutorService bulk() {
+        return bulk;
+    }
+
+    public ForkJoinPool parallel() {
+        return parallel;
+    }
+
+    public ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    /**
+     * Run a task on a pool, interrupting it if the owner is destroyed first.
+     * Must be called on the main thread when an owner is given.
+     * @param owner Fragment, view lifecycle owner or Activity the work belongs to; may be null
+     */
+    public Future<?> execute(@Nullable LifecycleOwner owner, ExecutorService pool, Runnable task) {
+        Future<?> future = pool.submit(task);
+        if (owner != null) {
+            bindToLifecycle(owner, future);
+        }
+        return future;
+    }
+
+    /**
+     * Like {@link #execute(LifecycleOwner, ExecutorService, Runnable)}, but a pool with a
+     * full queue runs onRejected on the calling thread instead of throwing
+     * @return The task's future, or null if it was rejected
+     */
+    @Nullable
+    public Future<?> execute(@Nullable LifecycleOwner owner, ExecutorService pool, Runnable task,
+                             Runnable onRejected) {
+        try {
+            return execute(owner, pool, task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Background pool is full, task rejected", e);
+            onRejected.run();
+            return null;
+        }
+    }
+
+    private static void bindToLifecycle(LifecycleOwner owner, Future<?> future) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        if (lifecycle.getCurrentState() == Lifecycle.State.DESTROYED) {
+            future.cancel(true);
+            return;
+        }
+        lifecycle.addObserver(new LifecycleEventObserver() {
+            @Override
+            public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+                if (event == Lifecycle.Event.ON_DESTROY) {
+                    source.getLifecycle().removeObserver(this);
+                    if (future.cancel(true)) {
+                        Log.d(TAG, "Cancelled background task of destroyed " + source.getClass().getSimpleName());
+                    }
+                }
+            }
+        });
+    }
+
+    public String getMetricsSummary() {
+        return diskIO.getMetricsSummary() + "; " + cpu.getMetricsSummary() + "; " + network.getMetricsSummary()
+                + "; " + bulk.getMetricsSummary()
+                + "; parallel: active=" + parallel.getActiveThreadCount()
+                + " queued=" + parallel.getQueuedSubmissionCount()
+                + " steals=" + parallel.getStealCount();
+    }
+
+    /**
+     * Fixed-size pool with a queue of a given capacity that records how long tasks wait and run
+     */
+    static class InstrumentedExecutor extends ThreadPoolExecutor {
+        private final String name;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong totalWaitMs = new AtomicLong();
+        private final AtomicLong totalRunMs = new AtomicLong();
+        private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+        InstrumentedExecutor(String name, int threads, int queueCapacity) {
+            // Full queue throws RejectedExecutionException rather than growing without bound
+            super(threads, threads, 30, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), new NamedThreadFactory(name));
+            this.name = name;
+            allowCoreThreadTimeOut(true);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            submitted.incrementAndGet();
+            super.execute(command instanceof TimedTask ? command : new TimedTask(command));
+            maxQueueDepth.accumulateAndGet(getQueue().size(), Math::max);
+        }
+
+        @Override
+        protected void beforeExecute(Thread thread, Runnable task) {
+            super.beforeExecute(thread, task);
+            if (task instanceof TimedTask) {
+                TimedTask timedTask = (TimedTask) task;
+                timedTask.startedAt = SystemClock.elapsedRealtime();
+                totalWaitMs.addAndGet(timedTask.startedAt - timedTask.queuedAt);
+            }
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable error) {
+            super.afterExecute(task, error);
+            if (task instanceof TimedTask) {
+                totalRunMs.addAndGet(SystemClock.elapsedRealtime() - ((TimedTask) task).startedAt);
+            }
+            completed.incrementAndGet();
+        }
+
+        String getMetricsSummary() {
+            long done = completed.get();
+            return name + ": active=" + getActiveCount()
+                    + " queued=" + getQueue().size()
+                    + " maxQueued=" + maxQueueDepth.get()
+                    + " submitted=" + submitted.get()
+                    + " completed=" + done
+                    + " avgWaitMs=" + (done == 0 ? 0 : totalWaitMs.get() / done)
+                    + " avgRunMs=" + (done == 0 ? 0 : totalRunMs.get() / done);
+        }
+    }
+
+    // Wraps submitted work to remember when it was queued
+    private static class TimedTask implements Runnable {
+        final Runnable delegate;
+        final long queuedAt = SystemClock.elapsedRealtime();
+        long startedAt;
+
+        TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            delegate.run();
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String poolName) {
+            this.prefix = "app-" + poolName + "-";
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+
+    private static class NamedForkJoinThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("app-parallel-" + count.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
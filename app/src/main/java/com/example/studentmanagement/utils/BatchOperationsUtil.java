@@ -4,186 +4,108 @@ import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
 
-import com.example.studentmanagement.models.Certificate;
+import androidx.annotation.WorkerThread;
+
 import com.example.studentmanagement.models.Student;
-import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.WriteBatch;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 /**
- * Utility class for handling batch operations such as bulk importing students
+ * Utility class for handling batch operations such as bulk updating students.
+ * Student imports go through {@link StudentSyncPlanner} and certificate imports
+ * through {@link CertificateImporter}.
  */
 public class BatchOperationsUtil {
     private static final String TAG = "BatchOperationsUtil";
-    private static final int BATCH_SIZE = 500; // Firestore batch limit is 500 operations
+
+    // Student fields carried by a CSV import
+    static final String[] IMPORTED_FIELDS = {
+            "name", "studentId", "email", "phoneNumber", "className", "dateOfBirth", "address"
+    };
 
     /**
-     * Import a list of students in batches to avoid Firestore limitations
-     * @param students List of students to import
-     * @param listener Callback for import progress and completion
+     * Apply the same field changes to many students through a BulkWriter, in full
+     * 500-write batches. Blocks while the writer applies backpressure, so it must be
+     * called from a background thread.
+     * @param studentIds Document IDs of the students; failures are keyed by these
      */
-    public static void batchImportStudents(List<Student> students, BatchOperationListener listener) {
+    @WorkerThread
+    public static void batchUpdateStudents(List<String> studentIds, Map<String, Object> changes,
+                                           BatchOperationListener listener) {
         FirebaseFirestore db = FirebaseFirestore.getInstance();
-
-        // Process students in batches
-        List<List<Student>> batches = splitIntoBatches(students, BATCH_SIZE);
-        final int totalBatches = batches.size();
-        final int[] completedBatches = {0};
-        final int[] successCount = {0};
-
-        // If empty list, call completion right away
-        if (batches.isEmpty()) {
-            if (listener != null) {
-                listener.onBatchOperationProgress(0, 0);
-                listener.onBatchOperationComplete(0);
+        BulkWriter writer = new BulkWriter(db, BulkWriter.MAX_OPS_PER_BATCH, BulkWriter.DEFAULT_MAX_IN_FLIGHT,
+                writerListener(studentIds.size(), listener));
+        Map<String, Object> keyedChanges = StudentUpserter.withoutStaleHash(StudentSearchKeys.withKeys(changes));
+
+        try {
+            for (String studentId : studentIds) {
+                DocumentReference studentRef = db.collection("students").document(studentId);
+                writer.add(studentId, batch -> batch.update(studentRef, keyedChanges));
             }
-            return;
-        }
-
-        // Process each batch
-        for (int i = 0; i < batches.size(); i++) {
-            List<Student> batch = batches.get(i);
-            WriteBatch writeBatch = db.batch();
-
-            for (Student student : batch) {
-                Map<String, Object> studentData = new HashMap<>();
-                studentData.put("name", student.getName());
-                studentData.put("studentId", student.getStudentId());
-                studentData.put("email", student.getEmail());
-                studentData.put("phoneNumber", student.getPhoneNumber());
-                studentData.put("className", student.getClassName());
-                studentData.put("dateOfBirth", student.getDateOfBirth());
-                studentData.put("address", student.getAddress());
-
-                // Create a new document with auto-generated ID
-                writeBatch.set(db.collection("students").document(), studentData);
-            }
-
-            // Commit the batch
-            final int batchIndex = i;
-            writeBatch.commit()
-                    .addOnSuccessListener(aVoid -> {
-                        successCount[0] += batches.get(batchIndex).size();
-                        completedBatches[0]++;
-
-                        if (listener != null) {
-                            listener.onBatchOperationProgress(completedBatches[0], totalBatches);
-                        }
-
-                        if (completedBatches[0] == totalBatches && listener != null) {
-                            listener.onBatchOperationComplete(successCount[0]);
-                        }
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.e(TAG, "Error importing batch " + batchIndex, e);
-                        completedBatches[0]++;
-
-                        if (listener != null) {
-                            listener.onBatchOperationProgress(completedBatches[0], totalBatches);
-                        }
-
-                        if (completedBatches[0] == totalBatches && listener != null) {
-                            listener.onBatchOperationComplete(successCount[0]);
-                        }
-                    });
+            writer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reportInterrupted(e, listener);
         }
     }
 
     /**
-     * Split a list into smaller batches
-     * @param list The original list
-     * @param batchSize Size of each batch
-     * @return List of batches
+     * Values of the imported fields of a student, their search keys and their content
+     * hash, by Firestore field name
      */
-    private static <T> List<List<T>> splitIntoBatches(List<T> list, int batchSize) {
-        List<List<T>> batches = new ArrayList<>();
-
-        for (int i = 0; i < list.size(); i += batchSize) {
-            int endIndex = Math.min(i + batchSize, list.size());
-            batches.add(new ArrayList<>(list.subList(i, endIndex)));
-        }
+    public static Map<String, Object> importedFields(Student student) {
+        Map<String, Object> studentData = new HashMap<>();
+        studentData.put("name", student.getName());
+        studentData.put("studentId", student.getStudentId());
+        studentData.put("email", student.getEmail());
+        studentData.put("phoneNumber", student.getPhoneNumber());
+        studentData.put("className", student.getClassName());
+        studentData.put("dateOfBirth", student.getDateOfBirth());
+        studentData.put("address", student.getAddress());
+        StudentSearchKeys.putKeys(studentData);
+        studentData.put(StudentUpserter.CONTENT_HASH, StudentUpserter.contentHash(studentData));
+        return studentData;
+    }
 
-        return batches;
+    // Label used for a CSV row in failure reports
+    static String recordKey(int index, String name) {
+        return "Row " + (index + 1) + (name != null && !name.isEmpty() ? " (" + name + ")" : "");
     }
 
-    public static void batchImportCertificates(List<Certificate> certificates,
-                                               BatchOperationListener listener) {
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Handler handler = new Handler(Looper.getMainLooper());
-
-        final int BATCH_SIZE = 20; // Firestore batch limit is 500, but smaller is safer
-
-        executor.execute(() -> {
-            try {
-                int totalBatches = (int) Math.ceil((double) certificates.size() / BATCH_SIZE);
-                int processedCount = 0;
-                int successCount = 0;
-
-                for (int batchNum = 0; batchNum < totalBatches; batchNum++) {
-                    // Create a new batch
-                    WriteBatch batch = db.batch();
-
-                    // Get subset for this batch
-                    int startIndex = batchNum * BATCH_SIZE;
-                    int endIndex = Math.min((batchNum + 1) * BATCH_SIZE, certificates.size());
-                    List<Certificate> batchItems = certificates.subList(startIndex, endIndex);
-
-                    // Add each certificate to the batch
-                    for (Certificate certificate : batchItems) {
-                        // Generate a new document ID if needed
-                        String docId = certificate.getId();
-                        if (docId == null || docId.isEmpty()) {
-                            docId = db.collection("certificates").document().getId();
-                            certificate.setId(docId);
-                        }
-
-                        // Create document reference
-                        DocumentReference docRef = db.collection("certificates").document(docId);
-
-                        // Add to batch
-                        batch.set(docRef, certificate);
-                        processedCount++;
-                    }
-
-                    // Commit the batch
-                    Tasks.await(batch.commit());
-                    successCount += batchItems.size();
-
-                    // Report progress
-                    final int currentBatch = batchNum + 1;
-                    final int currentSuccess = successCount;
-
-                    handler.post(() -> {
-                        if (listener != null) {
-                            listener.onBatchOperationProgress(currentBatch, totalBatches);
-                        }
-                    });
+    private static BulkWriter.Listener writerListener(int totalRecords, BatchOperationListener listener) {
+        return new BulkWriter.Listener() {
+            @Override
+            public void onProgress(int committedRecords, int failedRecords, int queuedRecords) {
+                if (listener != null) {
+                    listener.onBatchOperationProgress(committedRecords + failedRecords, totalRecords);
                 }
+            }
 
-                // Report completion
-                final int finalSuccessCount = successCount;
-                handler.post(() -> {
-                    if (listener != null) {
-                        listener.onBatchOperationComplete(finalSuccessCount);
-                    }
-                });
-
-            } catch (Exception e) {
-                Log.e("BatchOperations", "Error during batch import: " + e.getMessage());
-                handler.post(() -> {
-                    if (listener != null) {
-                        listener.onBatchOperationComplete(0);
-                    }
-                });
+            @Override
+            public void onBatchCommitted(List<String> recordKeys) {
+                // Progress is reported through onProgress
+            }
+
+            @Override
+            public void onComplete(BulkWriter.Result result) {
+                if (listener != null) {
+                    listener.onBatchOperationComplete(result.committedRecords, result.failures);
+                }
+            }
+        };
+    }
+
+    private static void reportInterrupted(InterruptedException e, BatchOperationListener listener) {
+        Log.e(TAG, "Batch update interrupted", e);
+        Map<String, Exception> failures = new HashMap<>();
+        failures.put("Update", e);
+        new Handler(Looper.getMainLooper()).post(() -> {
+            if (listener != null) {
+                listener.onBatchOperationComplete(0, failures);
             }
         });
     }
@@ -192,7 +114,11 @@ public class BatchOperationsUtil {
      * Interface for batch operation callbacks
      */
     public interface BatchOperationListener {
-        void onBatchOperationProgress(int completedBatches, int totalBatches);
-        void onBatchOperationComplete(int totalSuccessCount);
+        void onBatchOperationProgress(int processedRecords, int totalRecords);
+
+        /**
+         * @param failures Record label -> error, for every record that could not be written
+         */
+        void onBatchOperationComplete(int totalSuccessCount, Map<String, Exception> failures);
     }
-}
\ No newline at end of file
+}
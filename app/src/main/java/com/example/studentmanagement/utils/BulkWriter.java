@@ -0,0 +1,415 @@
+package com.example.studentmanagement.utils;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes many records to Firestore as a pipeline of WriteBatch commits.
+ * At most maxInFlight batches are committing at any time; add() blocks when that
+ * limit is reached, so a producer can never run far ahead of the network.
+ * Batches failing with a transient error are retried with exponential backoff;
+ * batches failing permanently are split in halves until the offending records are
+ * isolated, so failures are reported per record instead of per batch. The halves
+ * commit one at a time in the failed batch's slot, so splitting never exceeds maxInFlight.
+ * With an adaptive batch size, batches grow while commits stay fast and shrink
+ * when commits get slow or need retries.
+ * <p>
+ * add() and close() block and must be called from a background thread.
+ * Listener callbacks are delivered on the main thread.
+ */
+public class BulkWriter {
+    private static final String TAG = "BulkWriter";
+
+    // Firestore rejects batches with more than 500 writes
+    public static final int MAX_OPS_PER_BATCH = 500;
+    public static final int DEFAULT_BATCH_SIZE = 250;
+    public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+    public static final int MAX_RETRIES = 5;
+    private static final long INITIAL_BACKOFF_MS = 500;
+    private static final long MAX_BACKOFF_MS = 16_000;
+
+    private final BatchCommitter committer;
+    private final Listener listener;
+    private final Semaphore inFlightPermits;
+    private final Executor callbackExecutor;
+    private final ScheduledExecutorService retryScheduler;
+
+    private volatile int batchSize;
+    // Adaptive sizing; disabled while maxBatchSize is 0
+    private volatile int minBatchSize = 0;
+    private volatile int maxBatchSize = 0;
+    private volatile long targetCommitMs = 0;
+    private List<Record> currentBatch = new ArrayList<>();
+    private int currentOps = 0;
+    private volatile boolean closed = false;
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    // Batches committing or waiting for a retry
+    private final AtomicInteger pendingBatches = new AtomicInteger();
+    private final AtomicInteger totalRecords = new AtomicInteger();
+    private final AtomicInteger committedRecords = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final Map<String, Exception> failures = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile long startTime = 0;
+
+    /**
+     * One write of a record, applied to the batch the record ends up in.
+     * Called again for every retry, so it must not have side effects.
+     */
+    public interface Operation {
+        void apply(WriteBatch batch);
+    }
+
+    /**
+     * Builds a batch from the operations of its records and commits it
+     */
+    interface BatchCommitter {
+        Task<Void> commit(List<Operation> operations);
+    }
+
+    public interface Listener {
+        void onProgress(int committedRecords, int failedRecords, int totalRecords);
+
+        /**
+         * @param recordKeys Keys of the records in a batch that was just committed
+         */
+        void onBatchCommitted(List<String> recordKeys);
+
+        void onComplete(Result result);
+    }
+
+    public static class Result {
+        public final int committedRecords;
+        public final int failedRecords;
+        // record key -> error that made it fail
+        public final Map<String, Exception> failures;
+        public final int retries;
+        public final long elapsedMs;
+
+        Result(int committedRecords, Map<String, Exception> failures, int retries, long elapsedMs) {
+            this.committedRecords = committedRecords;
+            this.failedRecords = failures.size();
+            this.failures = failures;
+            this.retries = retries;
+            this.elapsedMs = elapsedMs;
+        }
+
+        public double getDocumentsPerSecond() {
+            return elapsedMs == 0 ? committedRecords : committedRecords * 1000.0 / elapsedMs;
+        }
+    }
+
+    // All writes of a record always go into the same batch
+    private static class Record {
+        final String key;
+        final List<Operation> operations;
+
+        Record(String key, List<Operation> operations) {
+            this.key = key;
+            this.operations = operations;
+        }
+    }
+
+    public BulkWriter(FirebaseFirestore db, Listener listener) {
+        this(db, DEFAULT_BATCH_SIZE, DEFAULT_MAX_IN_FLIGHT, listener);
+    }
+
+    /**
+     * @param batchSize   Records per batch
+     * @param maxInFlight Number of batches allowed to commit concurrently
+     */
+    public BulkWriter(FirebaseFirestore db, int batchSize, int maxInFlight, Listener listener) {
+        this(operations -> commitBatch(db, operations), batchSize, maxInFlight,
+                AppExecutors.get().mainThread(), AppExecutors.get().scheduler(), listener);
+    }
+
+    /**
+     * @param callbackExecutor Where listener callbacks run
+     */
+    BulkWriter(BatchCommitter committer, int batchSize, int maxInFlight, Executor callbackExecutor,
+               ScheduledExecutorService retryScheduler, Listener listener) {
+        this.committer = committer;
+        this.batchSize = Math.max(1, batchSize);
+        this.inFlightPermits = new Semaphore(Math.max(1, maxInFlight));
+        this.callbackExecutor = callbackExecutor;
+        this.retryScheduler = retryScheduler;
+        this.listener = listener;
+    }
+
+    // A WriteBatch can only be committed once, so it is rebuilt for every attempt
+    private static Task<Void> commitBatch(FirebaseFirestore db, List<Operation> operations) {
+        WriteBatch batch = db.batch();
+        for (Operation operation : operations) {
+            operation.apply(batch);
+        }
+        return batch.commit();
+    }
+
+    /**
+     * Queue a record; blocks while maxInFlight batches are already committing
+     * @param recordKey Identifies the record in failure reports and commit callbacks
+     */
+    @WorkerThread
+    public synchronized void add(String recordKey, Operation... operations) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("BulkWriter is closed");
+        }
+        if (operations.length > MAX_OPS_PER_BATCH) {
+            throw new IllegalArgumentException("A record cannot have more than " + MAX_OPS_PER_BATCH + " writes");
+        }
+        if (startTime == 0) {
+            startTime = SystemClock.elapsedRealtime();
+        }
+
+        if (currentOps + operations.length > MAX_OPS_PER_BATCH) {
+            flush();
+        }
+        currentBatch.add(new Record(recordKey, Arrays.asList(operations)));
+        currentOps += operations.length;
+        totalRecords.incrementAndGet();
+
+        if (currentBatch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Report a record that failed before it could be written, so it is counted in the result
+     */
+    public synchronized void fail(String recordKey, Exception error) {
+        if (closed) {
+            throw new IllegalStateException("BulkWriter is closed");
+        }
+        if (startTime == 0) {
+            startTime = SystemClock.elapsedRealtime();
+        }
+        totalRecords.incrementAndGet();
+        failures.put(recordKey, error);
+    }
+
+    /**
+     * Commit whatever is buffered and report completion once every batch has finished
+     */
+    @WorkerThread
+    public synchronized void close() throws InterruptedException {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        if (startTime == 0) {
+            startTime = SystemClock.elapsedRealtime();
+        }
+        maybeComplete();
+    }
+
+    /**
+     * Change the number of records per batch for batches not yet started
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Let the batch size follow commit latency: grow while commits finish within
+     * targetCommitMs, halve when they take more than twice that or have to be retried
+     */
+    public void setAdaptiveBatchSize(int minBatchSize, int maxBatchSize, long targetCommitMs) {
+        this.minBatchSize = Math.max(1, minBatchSize);
+        this.maxBatchSize = Math.max(this.minBatchSize, maxBatchSize);
+        this.targetCommitMs = targetCommitMs;
+        setBatchSize(Math.max(this.minBatchSize, Math.min(this.maxBatchSize, batchSize)));
+    }
+
+    private void adaptBatchSize(long commitMs, boolean failed) {
+        if (maxBatchSize == 0) {
+            return;
+        }
+        int size = batchSize;
+        if (failed || commitMs > 2 * targetCommitMs) {
+            batchSize = Math.max(minBatchSize, size / 2);
+        } else if (commitMs <= targetCommitMs) {
+            batchSize = Math.min(maxBatchSize, size + Math.max(1, size / 4));
+        }
+    }
+
+    private void flush() throws InterruptedException {
+        if (currentBatch.isEmpty()) {
+            return;
+        }
+        List<Record> records = currentBatch;
+        currentBatch = new ArrayList<>();
+        currentOps = 0;
+
+        // Backpressure: wait for a commit slot before sending more
+        inFlightPermits.acquire();
+        pendingBatches.incrementAndGet();
+        commit(records, 0, this::finishBatch);
+    }
+
+    /**
+     * Commit records, retrying transient failures and splitting permanent ones
+     * @param onSettled Run once every record has been committed or has failed
+     */
+    private void commit(List<Record> records, int attempt, Runnable onSettled) {
+        List<Operation> operations = new ArrayList<>();
+        for (Record record : records) {
+            operations.addAll(record.operations);
+        }
+
+        final long commitStart = SystemClock.elapsedRealtime();
+        Task<Void> commit;
+        try {
+            commit = committer.commit(operations);
+        } catch (RuntimeException e) {
+            // An operation that cannot be applied fails the same way every time
+            failPermanently(records, e, onSettled);
+            return;
+        }
+
+        commit.addOnCompleteListener(Runnable::run, task -> {
+            if (task.isSuccessful()) {
+                adaptBatchSize(SystemClock.elapsedRealtime() - commitStart, false);
+                onCommitted(records);
+                onSettled.run();
+                return;
+            }
+
+            Exception e = task.getException();
+            if (isRetryable(e) && attempt < MAX_RETRIES) {
+                adaptBatchSize(SystemClock.elapsedRealtime() - commitStart, true);
+                long backoff = Math.min(MAX_BACKOFF_MS, INITIAL_BACKOFF_MS << attempt);
+                // Jitter keeps concurrent batches from retrying in lockstep
+                backoff += (long) (Math.random() * backoff / 2);
+                retries.incrementAndGet();
+                Log.w(TAG, "Batch of " + records.size() + " failed, retry " + (attempt + 1) + " in " + backoff + "ms", e);
+                retryScheduler.schedule(() -> commit(records, attempt + 1, onSettled), backoff, TimeUnit.MILLISECONDS);
+            } else if (!isRetryable(e)) {
+                failPermanently(records, e, onSettled);
+            } else {
+                onFailed(records, e);
+                onSettled.run();
+            }
+        });
+    }
+
+    private void failPermanently(List<Record> records, Exception e, Runnable onSettled) {
+        if (records.size() == 1) {
+            onFailed(records, e);
+            onSettled.run();
+            return;
+        }
+        // Narrow a permanent failure down to the records causing it. The halves
+        // commit one after the other, so the split stays within this batch's permit
+        int middle = records.size() / 2;
+        List<Record> firstHalf = new ArrayList<>(records.subList(0, middle));
+        List<Record> secondHalf = new ArrayList<>(records.subList(middle, records.size()));
+        commit(firstHalf, 0, () -> commit(secondHalf, 0, onSettled));
+    }
+
+    private void onCommitted(List<Record> records) {
+        committedRecords.addAndGet(records.size());
+        List<String> keys = new ArrayList<>(records.size());
+        for (Record record : records) {
+            keys.add(record.key);
+        }
+        callbackExecutor.execute(() -> {
+            if (listener != null) {
+                listener.onBatchCommitted(keys);
+            }
+        });
+    }
+
+    private void onFailed(List<Record> records, Exception e) {
+        Log.e(TAG, "Giving up on batch of " + records.size() + " records", e);
+        for (Record record : records) {
+            failures.put(record.key, e);
+        }
+    }
+
+    // A batch from flush() has settled, including any halves it was split into
+    private void finishBatch() {
+        inFlightPermits.release();
+        pendingBatches.decrementAndGet();
+
+        int committed = committedRecords.get();
+        int failed = failures.size();
+        int total = totalRecords.get();
+        callbackExecutor.execute(() -> {
+            if (listener != null) {
+                listener.onProgress(committed, failed, total);
+            }
+        });
+        maybeComplete();
+    }
+
+    private void maybeComplete() {
+        if (!closed || pendingBatches.get() > 0 || !completed.compareAndSet(false, true)) {
+            return;
+        }
+        Result result;
+        synchronized (failures) {
+            result = new Result(committedRecords.get(), new LinkedHashMap<>(failures),
+                    retries.get(), SystemClock.elapsedRealtime() - startTime);
+        }
+        Log.d(TAG, "Wrote " + result.committedRecords + " records, " + result.failedRecords + " failed, "
+                + result.retries + " retries, " + String.format(Locale.US, "%.1f", result.getDocumentsPerSecond())
+                + " docs/s");
+        callbackExecutor.execute(() -> {
+            if (listener != null) {
+                listener.onComplete(result);
+            }
+        });
+    }
+
+    // Errors worth retrying as-is; anything else will fail again the same way
+    private static boolean isRetryable(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            // Only network failures are transient; other exceptions are bugs or bad data
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof IOException) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case ABORTED:
+            case CANCELLED:
+            case DEADLINE_EXCEEDED:
+            case INTERNAL:
+            case RESOURCE_EXHAUSTED:
+            case UNAVAILABLE:
+            case UNKNOWN:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
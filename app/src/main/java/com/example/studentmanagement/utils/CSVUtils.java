@@ -1,242 +1,218 @@
 package com.example.studentmanagement.utils;
 
-import android.app.ProgressDialog;
 import android.content.Context;
 import android.net.Uri;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
-import android.widget.Toast;
+
+import androidx.lifecycle.LifecycleOwner;
 
 import com.example.studentmanagement.models.Student;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
 
 public class CSVUtils {
     private static final String TAG = "CSVUtils";
     private static final String CSV_HEADER = "ID,Name,Email,Phone,Class,Date of Birth,Address";
-    private static final String CSV_DELIMITER = ",";
+    // Students read from Firestore per request while exporting
+    private static final int EXPORT_PAGE_SIZE = 500;
 
-    // Method to export students to CSV
-    public static void exportStudentsToCSV(Context context, List<Student> students, Uri fileUri,
+    // Method to export students to CSV, read page by page straight from Firestore
+    public static void exportStudentsToCSV(LifecycleOwner owner, Context context, Uri fileUri,
                                            OnCSVOperationListener listener) {
-        // Use a background thread for file operations
-        ExecutorService executor = Executors.newSingleThreadExecutor();
         Handler handler = new Handler(Looper.getMainLooper());
 
-        executor.execute(() -> {
-            boolean success = false;
-            try {
-                OutputStream outputStream = context.getContentResolver().openOutputStream(fileUri);
+        // Runs on the shared disk pool; cancelled if the owner is destroyed
+        AppExecutors.get().execute(owner, AppExecutors.get().diskIO(), () -> {
+            long exported = 0;
+            String error = null;
+            FirebaseFirestore db = FirebaseFirestore.getInstance();
+
+            // The stream is closed on every path, including a failed count or page read
+            try (OutputStream outputStream = context.getContentResolver().openOutputStream(fileUri)) {
                 if (outputStream == null) {
-                    handler.post(() -> {
-                        if (listener != null) {
-                            listener.onOperationComplete(false, "Could not open file for writing");
-                        }
-                    });
-                    return;
+                    throw new IOException("Could not open file for writing");
                 }
 
-                // Write CSV header
-                outputStream.write((CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
-
-                // Write student data
-                for (Student student : students) {
-                    StringBuilder line = new StringBuilder();
-                    // Escape fields that might contain commas
-                    line.append(escapeField(student.getStudentId())).append(CSV_DELIMITER);
-                    line.append(escapeField(student.getName())).append(CSV_DELIMITER);
-                    line.append(escapeField(student.getEmail())).append(CSV_DELIMITER);
-                    line.append(escapeField(student.getPhoneNumber())).append(CSV_DELIMITER);
-                    line.append(escapeField(student.getClassName())).append(CSV_DELIMITER);
-                    line.append(escapeField(student.getDateOfBirth())).append(CSV_DELIMITER);
-                    line.append(escapeField(student.getAddress()));
-                    line.append("\n");
-
-                    outputStream.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                // Total for the progress bar, from a single aggregation read
+                long countResult;
+                try {
+                    countResult = Tasks.await(db.collection("students").count().get(AggregateSource.SERVER)).getCount();
+                } catch (ExecutionException e) {
+                    Log.w(TAG, "Could not count students, exporting without a total", e);
+                    countResult = 0;
                 }
+                final long total = countResult;
+
+                try (CsvExportWriter writer = new CsvExportWriter(outputStream)) {
+                    writer.writeHeader(CSV_HEADER);
+
+                    // Paged by document ID, which every student has, so none is left out
+                    DocumentSnapshot lastDocument = null;
+                    while (true) {
+                        Query query = db.collection("students")
+                                .orderBy(FieldPath.documentId())
+                                .limit(EXPORT_PAGE_SIZE);
+                        if (lastDocument != null) {
+                            query = query.startAfter(lastDocument);
+                        }
+                        QuerySnapshot page = Tasks.await(query.get());
+
+                        for (QueryDocumentSnapshot document : page) {
+                            writeStudent(writer, document.toObject(Student.class));
+                        }
+
+                        final long rows = writer.getRowsWritten();
+                        handler.post(() -> {
+                            if (listener != null) {
+                                listener.onProgressUpdate((int) rows, (int) Math.max(total, rows));
+                            }
+                        });
 
-                outputStream.close();
-                success = true;
+                        if (page.size() < EXPORT_PAGE_SIZE) {
+                            break;
+                        }
+                        lastDocument = page.getDocuments().get(page.size() - 1);
+                    }
+                    exported = writer.getRowsWritten();
+                }
             } catch (IOException e) {
                 Log.e(TAG, "Error exporting students to CSV", e);
-                success = false;
+                error = "Failed to export students";
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Error reading students for export", e);
+                error = "Failed to load students for export";
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                error = "Export was interrupted";
             }
 
             // Return result on main thread
-            final boolean result = success;
+            final long exportedRows = exported;
+            final String errorMessage = error;
             handler.post(() -> {
                 if (listener != null) {
-                    listener.onOperationComplete(result, result ?
-                            students.size() + " students exported successfully" :
-                            "Failed to export students");
+                    listener.onOperationComplete(errorMessage == null, errorMessage == null ?
+                            exportedRows + " students exported successfully" :
+                            errorMessage);
                 }
             });
-        });
+        }, () -> reportBusy(listener));
     }
 
-    // Method to import students from CSV
-    public static void importStudentsFromCSV(Context context, Uri fileUri, OnCSVOperationListener listener) {
-        // Use a background thread for file operations
-        ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Method to export a given set of students, such as a selection, to CSV
+    public static void exportStudentsToCSV(LifecycleOwner owner, Context context, Uri fileUri,
+                                           List<Student> students, OnCSVOperationListener listener) {
         Handler handler = new Handler(Looper.getMainLooper());
+        List<Student> snapshot = new ArrayList<>(students);
 
-        executor.execute(() -> {
-            List<Student> importedStudents = new ArrayList<>();
-            try {
-                InputStream inputStream = context.getContentResolver().openInputStream(fileUri);
-                if (inputStream == null) {
-                    handler.post(() -> {
-                        if (listener != null) {
-                            listener.onOperationComplete(false, "Could not open file for reading");
-                        }
-                    });
-                    return;
+        AppExecutors.get().execute(owner, AppExecutors.get().diskIO(), () -> {
+            String error = null;
+            try (OutputStream outputStream = context.getContentResolver().openOutputStream(fileUri)) {
+                if (outputStream == null) {
+                    throw new IOException("Could not open file for writing");
                 }
+                CsvExportWriter writer = new CsvExportWriter(outputStream);
+                writer.writeHeader(CSV_HEADER);
+                for (Student student : snapshot) {
+                    writeStudent(writer, student);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                Log.e(TAG, "Error exporting students to CSV", e);
+                error = "Failed to export students";
+            }
 
-                BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-                String line;
-                boolean isFirstLine = true;
+            final String errorMessage = error;
+            handler.post(() -> {
+                if (listener != null) {
+                    listener.onOperationComplete(errorMessage == null, errorMessage == null ?
+                            snapshot.size() + " students exported successfully" :
+                            errorMessage);
+                }
+            });
+        }, () -> reportBusy(listener));
+    }
 
-                while ((line = reader.readLine()) != null) {
-                    // Skip header line
-                    if (isFirstLine) {
-                        isFirstLine = false;
-                        continue;
-                    }
+    // The pool's queue was full, so the task never ran; called on the submitting thread
+    private static void reportBusy(OnCSVOperationListener listener) {
+        if (listener != null) {
+            listener.onOperationComplete(false, "Too many background tasks are running, please try again");
+        }
+    }
 
-                    // Parse CSV line to student object
-                    Student student = parseCSVLineToStudent(line);
-                    if (student != null) {
-                        importedStudents.add(student);
-                    }
-                }
+    private static void writeStudent(CsvExportWriter writer, Student student) throws IOException {
+        writer.writeRow(
+                student.getStudentId(),
+                student.getName(),
+                student.getEmail(),
+                student.getPhoneNumber(),
+                student.getClassName(),
+                student.getDateOfBirth(),
+                student.getAddress());
+    }
 
-                reader.close();
-                inputStream.close();
-
-                // Now save the imported students using batch operations
-                if (!importedStudents.isEmpty()) {
-                    handler.post(() -> {
-                        // Use BatchOperationsUtil to save students in batches
-                        BatchOperationsUtil.batchImportStudents(importedStudents,
-                                new BatchOperationsUtil.BatchOperationListener() {
-                                    @Override
-                                    public void onBatchOperationProgress(int completedBatches, int totalBatches) {
-                                        if (listener != null) {
-                                            listener.onProgressUpdate(completedBatches, totalBatches);
-                                        }
-                                    }
-
-                                    @Override
-                                    public void onBatchOperationComplete(int totalSuccessCount) {
-                                        if (listener != null) {
-                                            listener.onOperationComplete(true,
-                                                    totalSuccessCount + " students imported successfully");
-                                        }
-                                    }
-                                });
-                    });
-                } else {
-                    handler.post(() -> {
-                        if (listener != null) {
-                            listener.onOperationComplete(false,
-                                    "No valid student records found in the CSV file");
-                        }
-                    });
-                }
+    // Method to compare a roster file with the stored students, as a dry run before importing it
+    public static void planStudentImport(LifecycleOwner owner, Context context, Uri fileUri,
+                                         StudentSyncPlanner.PlanListener listener) {
+        Handler handler = new Handler(Looper.getMainLooper());
+        StudentSyncPlanner planner = new StudentSyncPlanner(context, fileUri);
+        // Reading every stored student can take minutes, so this runs on the bulk pool
+        AppExecutors.get().execute(owner, AppExecutors.get().bulk(), () -> {
+            try {
+                StudentSyncPlanner.Plan plan = planner.plan();
+                handler.post(() -> listener.onPlanReady(plan));
             } catch (IOException e) {
-                Log.e(TAG, "Error importing students from CSV", e);
-                handler.post(() -> {
-                    if (listener != null) {
-                        listener.onOperationComplete(false, "Error reading the CSV file: " + e.getMessage());
-                    }
-                });
+                Log.e(TAG, "Error reading students CSV", e);
+                handler.post(() -> listener.onPlanFailed("Error reading the CSV file: " + e.getMessage()));
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Error loading existing students", e);
+                handler.post(() -> listener.onPlanFailed("Failed to load existing students"));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         });
     }
 
-    // Helper method to parse a CSV line to a Student object
-    private static Student parseCSVLineToStudent(String line) {
-        try {
-            // Handle quoted fields that may contain commas
-            List<String> fields = parseCSVLine(line);
-            if (fields.size() < 7) {
-                return null;
-            }
-
-            Student student = new Student();
-            student.setStudentId(fields.get(0));
-            student.setName(fields.get(1));
-            student.setEmail(fields.get(2));
-            student.setPhoneNumber(fields.get(3));
-            student.setClassName(fields.get(4));
-            student.setDateOfBirth(fields.get(5));
-            student.setAddress(fields.get(6));
-
-            return student;
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing CSV line: " + line, e);
-            return null;
-        }
+    // Method to write only the new and changed students of a plan
+    public static void commitStudentImport(Context context, Uri fileUri,
+                                           StudentSyncPlanner.Plan plan, OnCSVOperationListener listener) {
+        // Rows are parsed on the disk pool and written from the bulk pool as a stream.
+        // Not bound to a lifecycle: leaving the screen must not stop an import halfway
+        StudentSyncPlanner planner = new StudentSyncPlanner(context.getApplicationContext(), fileUri);
+        AppExecutors.get().execute(null, AppExecutors.get().diskIO(), () -> planner.commit(plan, listener),
+                () -> reportBusy(listener));
     }
 
-    // Helper method to escape fields for CSV
-    private static String escapeField(String field) {
-        if (field == null) {
-            return "";
-        }
-
-        // If the field contains quotes, commas, or newlines, wrap it in quotes and escape quotes
-        if (field.contains("\"") || field.contains(",") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    // Helper method to turn the tokenizer's current record into a Student object
+    static Student recordToStudent(CsvTokenizer record) {
+        if (record.getFieldCount() < 7) {
+            return null;
         }
-        return field;
-    }
 
-    // Helper to parse CSV line handling quoted fields
-    private static List<String> parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder field = new StringBuilder();
-        Log.d(TAG, "Reading line: " + line);
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (c == '\"') {
-                if (i + 1 < line.length() && line.charAt(i + 1) == '\"') {
-                    // Escaped quote
-                    field.append('\"');
-                    i++; // Skip the next quote
-                } else {
-                    // Toggle in-quotes state
-                    inQuotes = !inQuotes;
-                }
-            } else if (c == ',' && !inQuotes) {
-                // End of field
-                fields.add(field.toString());
-                field = new StringBuilder();
-            } else {
-                field.append(c);
-            }
-        }
+        Student student = new Student();
+        student.setStudentId(record.getField(0));
+        student.setName(record.getField(1));
+        student.setEmail(record.getField(2));
+        student.setPhoneNumber(record.getField(3));
+        student.setClassName(record.getField(4));
+        student.setDateOfBirth(record.getField(5));
+        student.setAddress(record.getField(6));
 
-        // Add the last field
-        fields.add(field.toString());
-        return fields;
+        return student;
     }
 
     // Interface for CSV operation callbacks
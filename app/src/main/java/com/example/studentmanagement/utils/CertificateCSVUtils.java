@@ -8,10 +8,11 @@ import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
+import androidx.lifecycle.LifecycleOwner;
+
 import com.example.studentmanagement.models.Certificate;
 import com.google.firebase.firestore.FirebaseFirestore;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -21,22 +22,20 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class CertificateCSVUtils {
     private static final String TAG = "CertificateCSVUtils";
     private static final String CSV_HEADER = "Name,Issuing Authority,Issue Date,Expiry Date,Description";
-    private static final String CSV_DELIMITER = ",";
+    // Rows between two progress updates during export
+    private static final int PROGRESS_INTERVAL = 100;
 
     // Method to export certificates to CSV
-    public static void exportCertificatesToCSV(Context context, List<Certificate> certificates, Uri fileUri,
+    public static void exportCertificatesToCSV(LifecycleOwner owner, Context context, List<Certificate> certificates, Uri fileUri,
                                                OnCSVOperationListener listener) {
-        // Use a background thread for file operations
-        ExecutorService executor = Executors.newSingleThreadExecutor();
+        // Use the shared disk pool; the task is cancelled if the owner is destroyed
         Handler handler = new Handler(Looper.getMainLooper());
 
-        executor.execute(() -> {
+        AppExecutors.get().execute(owner, AppExecutors.get().diskIO(), () -> {
             boolean success = false;
             try {
                 OutputStream outputStream = context.getContentResolver().openOutputStream(fileUri);
@@ -49,24 +48,29 @@ public class CertificateCSVUtils {
                     return;
                 }
 
-                // Write CSV header
-                outputStream.write((CSV_HEADER + "\n").getBytes(StandardCharsets.UTF_8));
-
-                // Write certificate data
-                for (Certificate certificate : certificates) {
-                    StringBuilder line = new StringBuilder();
-                    // Escape fields that might contain commas
-                    line.append(escapeField(certificate.getCertificateName())).append(CSV_DELIMITER);
-                    line.append(escapeField(certificate.getIssuingAuthority())).append(CSV_DELIMITER);
-                    line.append(escapeField(certificate.getIssueDate())).append(CSV_DELIMITER);
-                    line.append(escapeField(certificate.getExpiryDate())).append(CSV_DELIMITER);
-                    line.append(escapeField(certificate.getDescription()));
-                    line.append("\n");
-
-                    outputStream.write(line.toString().getBytes(StandardCharsets.UTF_8));
+                // Rows are encoded into one reusable buffer and written in large chunks
+                try (CsvExportWriter writer = new CsvExportWriter(outputStream)) {
+                    writer.writeHeader(CSV_HEADER);
+
+                    int total = certificates.size();
+                    for (Certificate certificate : certificates) {
+                        writer.writeRow(
+                                certificate.getCertificateName(),
+                                certificate.getIssuingAuthority(),
+                                certificate.getIssueDate(),
+                                certificate.getExpiryDate(),
+                                certificate.getDescription());
+
+                        final int rows = (int) writer.getRowsWritten();
+                        if (rows % PROGRESS_INTERVAL == 0 || rows == total) {
+                            handler.post(() -> {
+                                if (listener != null) {
+                                    listener.onProgressUpdate(rows, total);
+                                }
+                            });
+                        }
+                    }
                 }
-
-                outputStream.close();
                 success = true;
             } catch (IOException e) {
                 Log.e(TAG, "Error exporting certificates to CSV", e);
@@ -82,16 +86,20 @@ public class CertificateCSVUtils {
                             "Failed to export certificates");
                 }
             });
+        }, () -> {
+            if (listener != null) {
+                listener.onOperationComplete(false, "Too many background tasks are running, please try again");
+            }
         });
     }
 
     // Method to import certificates from CSV - attaches to current student
-    public static void importCertificatesFromCSV(Context context, Uri fileUri, String studentId, OnCSVOperationListener listener) {
-        // Use a background thread for file operations
-        ExecutorService executor = Executors.newSingleThreadExecutor();
+    public static void importCertificatesFromCSV(LifecycleOwner owner, Context context, Uri fileUri, String studentId,
+                                                 OnCSVOperationListener listener) {
+        // Writing can take minutes, so use the bulk pool; the task is cancelled if the owner is destroyed
         Handler handler = new Handler(Looper.getMainLooper());
 
-        executor.execute(() -> {
+        AppExecutors.get().execute(owner, AppExecutors.get().bulk(), () -> {
             List<Certificate> importedCertificates = new ArrayList<>();
             try {
                 InputStream inputStream = context.getContentResolver().openInputStream(fileUri);
@@ -104,49 +112,41 @@ public class CertificateCSVUtils {
                     return;
                 }
 
-                BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-                String line;
-                boolean isFirstLine = true;
+                CsvTokenizer tokenizer = new CsvTokenizer(
+                        new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+                // Skip header record
+                tokenizer.nextRecord();
 
-                while ((line = reader.readLine()) != null) {
-                    // Skip header line
-                    if (isFirstLine) {
-                        isFirstLine = false;
-                        continue;
-                    }
-
-                    // Parse CSV line to certificate object
-                    Certificate certificate = parseCSVLineToCertificate(line, studentId);
+                while (tokenizer.nextRecord()) {
+                    // Parse CSV record to certificate object
+                    Certificate certificate = recordToCertificate(tokenizer, studentId);
                     if (certificate != null) {
                         importedCertificates.add(certificate);
                     }
                 }
 
-                reader.close();
-                inputStream.close();
+                tokenizer.close();
 
                 // Now save the imported certificates using batch operations
                 if (!importedCertificates.isEmpty()) {
-                    handler.post(() -> {
-                        // Use BatchOperationsUtil to save certificates in batches
-                        BatchOperationsUtil.batchImportCertificates(importedCertificates,
-                                new BatchOperationsUtil.BatchOperationListener() {
-                                    @Override
-                                    public void onBatchOperationProgress(int completedBatches, int totalBatches) {
-                                        if (listener != null) {
-                                            listener.onProgressUpdate(completedBatches, totalBatches);
-                                        }
+                    // Concurrent, resumable import; runs on this worker thread
+                    new CertificateImporter(context, fileUri, studentId).importCertificates(importedCertificates,
+                            new BatchOperationsUtil.BatchOperationListener() {
+                                @Override
+                                public void onBatchOperationProgress(int processedRecords, int totalRecords) {
+                                    if (listener != null) {
+                                        listener.onProgressUpdate(processedRecords, totalRecords);
                                     }
+                                }
 
-                                    @Override
-                                    public void onBatchOperationComplete(int totalSuccessCount) {
-                                        if (listener != null) {
-                                            listener.onOperationComplete(true,
-                                                    totalSuccessCount + " certificates imported successfully");
-                                        }
+                                @Override
+                                public void onBatchOperationComplete(int totalSuccessCount, Map<String, Exception> failures) {
+                                    if (listener != null) {
+                                        listener.onOperationComplete(totalSuccessCount > 0,
+                                                importSummary(totalSuccessCount, failures));
                                     }
-                                });
-                    });
+                                }
+                            });
                 } else {
                     handler.post(() -> {
                         if (listener != null) {
@@ -166,74 +166,38 @@ public class CertificateCSVUtils {
         });
     }
 
-    // Helper method to parse a CSV line to a Certificate object
-    private static Certificate parseCSVLineToCertificate(String line, String studentId) {
-        try {
-            // Handle quoted fields that may contain commas
-            List<String> fields = parseCSVLine(line);
-            if (fields.size() < 5) {
-                return null;
+    // Message shown when an import finishes; names the first few failed rows
+    private static String importSummary(int successCount, Map<String, Exception> failures) {
+        StringBuilder message = new StringBuilder(successCount + " certificates imported successfully");
+        if (!failures.isEmpty()) {
+            message.append(", ").append(failures.size()).append(" failed");
+            int shown = 0;
+            for (String record : failures.keySet()) {
+                if (shown++ == 3) {
+                    message.append(", ...");
+                    break;
+                }
+                message.append(shown == 1 ? ": " : ", ").append(record);
             }
-
-            Certificate certificate = new Certificate();
-            certificate.setStudentId(studentId);
-            certificate.setCertificateName(fields.get(0));
-            certificate.setIssuingAuthority(fields.get(1));
-            certificate.setIssueDate(fields.get(2));
-            certificate.setExpiryDate(fields.get(3));
-            certificate.setDescription(fields.get(4));
-
-            return certificate;
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing CSV line: " + line, e);
-            return null;
         }
+        return message.toString();
     }
 
-    // Helper method to escape fields for CSV
-    private static String escapeField(String field) {
-        if (field == null) {
-            return "";
-        }
-
-        // If the field contains quotes, commas, or newlines, wrap it in quotes and escape quotes
-        if (field.contains("\"") || field.contains(",") || field.contains("\n")) {
-            return "\"" + field.replace("\"", "\"\"") + "\"";
+    // Helper method to turn the tokenizer's current record into a Certificate object
+    private static Certificate recordToCertificate(CsvTokenizer record, String studentId) {
+        if (record.getFieldCount() < 5) {
+            return null;
         }
-        return field;
-    }
 
-    // Helper to parse CSV line handling quoted fields
-    private static List<String> parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder field = new StringBuilder();
-        Log.d(TAG, "Reading line: " + line);
-
-        for (int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
-
-            if (c == '\"') {
-                if (i + 1 < line.length() && line.charAt(i + 1) == '\"') {
-                    // Escaped quote
-                    field.append('\"');
-                    i++; // Skip the next quote
-                } else {
-                    // Toggle in-quotes state
-                    inQuotes = !inQuotes;
-                }
-            } else if (c == ',' && !inQuotes) {
-                // End of field
-                fields.add(field.toString());
-                field = new StringBuilder();
-            } else {
-                field.append(c);
-            }
-        }
+        Certificate certificate = new Certificate();
+        certificate.setStudentId(studentId);
+        certificate.setCertificateName(record.getField(0));
+        certificate.setIssuingAuthority(record.getField(1));
+        certificate.setIssueDate(record.getField(2));
+        certificate.setExpiryDate(record.getField(3));
+        certificate.setDescription(record.getField(4));
 
-        // Add the last field
-        fields.add(field.toString());
-        return fields;
+        return certificate;
     }
 
     // Interface for CSV operation callbacks
@@ -0,0 +1,177 @@
+package com.example.studentmanagement.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.studentmanagement.models.Certificate;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Imports a student's certificates from one CSV file.
+ * Certificates are written to "certificates" in batches committed concurrently with
+ * an adaptive size, and the number of leading rows known to be committed is
+ * checkpointed so an interrupted import resumes there. Only the certificate
+ * documents are written, so concurrent batches never contend for the student's document.
+ * Certificate IDs are derived from the file and row, so rows rewritten on resume
+ * (or a repeated import of the same file) overwrite instead of duplicating.
+ */
+public class CertificateImporter {
+    private static final String TAG = "CertificateImporter";
+    private static final String PREFS_NAME = "certificate_import_checkpoints";
+
+    // One write per certificate
+    public static final int INITIAL_BATCH_SIZE = 100;
+    public static final int MIN_BATCH_SIZE = 25;
+    public static final int MAX_BATCH_SIZE = BulkWriter.MAX_OPS_PER_BATCH;
+    public static final int MAX_IN_FLIGHT = 6;
+    private static final long TARGET_COMMIT_MS = 1500;
+
+    private final FirebaseFirestore db;
+    private final SharedPreferences checkpoints;
+    private final String importKey;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Rows committed so far; only touched on the main thread
+    private final BitSet committedRows = new BitSet();
+    private int committedPrefix = 0;
+
+    public CertificateImporter(Context context, Uri sourceUri, String studentId) {
+        this.db = FirebaseFirestore.getInstance();
+        this.checkpoints = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.importKey = sourceUri + "|" + studentId;
+    }
+
+    /**
+     * Write the certificates parsed from the file, skipping rows a previous run committed.
+     * Blocks while the writer applies backpressure, so call it from a background thread.
+     */
+    @WorkerThread
+    public void importCertificates(List<Certificate> certificates,
+                                   BatchOperationsUtil.BatchOperationListener listener) {
+        final int total = certificates.size();
+        final int resumeFrom = loadCheckpoint(total);
+        if (resumeFrom > 0) {
+            Log.d(TAG, "Resuming certificate import at row " + (resumeFrom + 1) + " of " + total);
+        }
+        mainHandler.post(() -> {
+            committedRows.clear();
+            committedRows.set(0, resumeFrom);
+            committedPrefix = resumeFrom;
+        });
+
+        BulkWriter writer = new BulkWriter(db, INITIAL_BATCH_SIZE, MAX_IN_FLIGHT, new BulkWriter.Listener() {
+            @Override
+            public void onProgress(int committedRecords, int failedRecords, int queuedRecords) {
+                if (listener != null) {
+                    listener.onBatchOperationProgress(resumeFrom + committedRecords + failedRecords, total);
+                }
+            }
+
+            @Override
+            public void onBatchCommitted(List<String> recordKeys) {
+                for (String key : recordKeys) {
+                    committedRows.set(Integer.parseInt(key));
+                }
+                advanceCheckpoint(total);
+            }
+
+            @Override
+            public void onComplete(BulkWriter.Result result) {
+                Map<String, Exception> failures = new LinkedHashMap<>();
+                for (Map.Entry<String, Exception> failure : result.failures.entrySet()) {
+                    int row = Integer.parseInt(failure.getKey());
+                    failures.put(rowLabel(row, certificates.get(row)), failure.getValue());
+                }
+                if (failures.isEmpty()) {
+                    clearCheckpoint();
+                }
+                if (listener != null) {
+                    listener.onBatchOperationComplete(resumeFrom + result.committedRecords, failures);
+                }
+            }
+        });
+        writer.setAdaptiveBatchSize(MIN_BATCH_SIZE, MAX_BATCH_SIZE, TARGET_COMMIT_MS);
+
+        try {
+            for (int row = resumeFrom; row < total; row++) {
+                Certificate certificate = certificates.get(row);
+                if (certificate.getId() == null || certificate.getId().isEmpty()) {
+                    certificate.setId(certificateIdFor(row));
+                }
+                DocumentReference certificateRef = db.collection("certificates").document(certificate.getId());
+                Map<String, Object> certificateData = certificate.toMap();
+                writer.add(String.valueOf(row), batch -> batch.set(certificateRef, certificateData));
+            }
+            writer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.e(TAG, "Certificate import interrupted; will resume from the checkpoint", e);
+            Map<String, Exception> failures = new HashMap<>();
+            failures.put("Import", e);
+            mainHandler.post(() -> {
+                if (listener != null) {
+                    listener.onBatchOperationComplete(committedPrefix, failures);
+                }
+            });
+        }
+    }
+
+    // Stable per file and row, so a rewritten row replaces the document written before
+    private String certificateIdFor(int row) {
+        byte[] name = (importKey + "#" + row).getBytes(StandardCharsets.UTF_8);
+        return UUID.nameUUIDFromBytes(name).toString().replace("-", "");
+    }
+
+    private static String rowLabel(int row, Certificate certificate) {
+        String name = certificate.getCertificateName();
+        return "Row " + (row + 1) + (name != null && !name.isEmpty() ? " (" + name + ")" : "");
+    }
+
+    private int loadCheckpoint(int total) {
+        String key = checkpointKey();
+        // A checkpoint only applies to the same file with the same number of rows
+        if (checkpoints.getInt(key + "_total", -1) != total) {
+            return 0;
+        }
+        return Math.min(total, checkpoints.getInt(key + "_committed", 0));
+    }
+
+    // Batches finish out of order; only the run of rows committed from the start is safe to skip
+    private void advanceCheckpoint(int total) {
+        int prefix = committedRows.nextClearBit(committedPrefix);
+        if (prefix == committedPrefix) {
+            return;
+        }
+        committedPrefix = prefix;
+        checkpoints.edit()
+                .putInt(checkpointKey() + "_total", total)
+                .putInt(checkpointKey() + "_committed", committedPrefix)
+                .apply();
+    }
+
+    private void clearCheckpoint() {
+        checkpoints.edit()
+                .remove(checkpointKey() + "_total")
+                .remove(checkpointKey() + "_committed")
+                .apply();
+    }
+
+    private String checkpointKey() {
+        return UUID.nameUUIDFromBytes(importKey.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.studentmanagement.utils;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * One-off migration of the documents of a collection. Documents are read a page at a
+ * time in ID order and only those needing a change are updated, through a BulkWriter.
+ * Runs once per device and version; a run with failures is tried again next time.
+ */
+public abstract class CollectionBackfill {
+    private static final String PREFS_NAME = "migrations";
+    private static final int PAGE_SIZE = 500;
+
+    protected final FirebaseFirestore db;
+    private final SharedPreferences prefs;
+    private final String tag;
+    private final String collection;
+    private final String versionKey;
+    private final int version;
+
+    /**
+     * @param versionKey Preference holding the version this device has run
+     * @param version    Bump to run the backfill again, e.g. after changing what it writes
+     */
+    protected CollectionBackfill(Context context, FirebaseFirestore db, String tag,
+                                 String collection, String versionKey, int version) {
+        this.db = db;
+        this.prefs = context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.tag = tag;
+        this.collection = collection;
+        this.versionKey = versionKey;
+        this.version = version;
+    }
+
+    /**
+     * Fields to update on a document, or null if it is already migrated
+     */
+    @Nullable
+    protected abstract Map<String, Object> changesFor(DocumentSnapshot document);
+
+    /**
+     * Start the backfill on the bulk pool unless this device already ran it
+     */
+    public void runOnce() {
+        if (prefs.getInt(versionKey, 0) >= version) {
+            return;
+        }
+        AppExecutors.get().bulk().execute(this::run);
+    }
+
+    @WorkerThread
+    private void run() {
+        BulkWriter writer = new BulkWriter(db, new BulkWriter.Listener() {
+            @Override
+            public void onProgress(int committedRecords, int failedRecords, int totalRecords) {
+                // Nothing is shown while a backfill runs
+            }
+
+            @Override
+            public void onBatchCommitted(List<String> recordKeys) {
+                // Progress is not tracked per batch
+            }
+
+            @Override
+            public void onComplete(BulkWriter.Result result) {
+                if (result.failedRecords == 0) {
+                    prefs.edit().putInt(versionKey, version).apply();
+                }
+                Log.d(tag, "Backfilled " + result.committedRecords + " " + collection + " documents, "
+                        + result.failedRecords + " failed");
+            }
+        });
+
+        try {
+            DocumentSnapshot lastDocument = null;
+            while (true) {
+                Query query = db.collection(collection)
+                        .orderBy(FieldPath.documentId())
+                        .limit(PAGE_SIZE);
+                if (lastDocument != null) {
+                    query = query.startAfter(lastDocument);
+                }
+                QuerySnapshot page = Tasks.await(query.get());
+
+                for (DocumentSnapshot document : page.getDocuments()) {
+                    Map<String, Object> changes = changesFor(document);
+                    if (changes != null && !changes.isEmpty()) {
+                        DocumentReference documentRef = document.getReference();
+                        writer.add(document.getId(), batch -> batch.update(documentRef, changes));
+                    }
+                }
+
+                if (page.size() < PAGE_SIZE) {
+                    break;
+                }
+                lastDocument = page.getDocuments().get(page.size() - 1);
+            }
+        } catch (ExecutionException e) {
+            // Reported through the writer so the version is not recorded
+            Log.e(tag, "Reading " + collection + " for the backfill failed", e);
+            writer.fail("Read", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.fail("Read", e);
+        }
+
+        try {
+            writer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.studentmanagement.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes CSV rows as UTF-8 into a reusable byte buffer and hands the buffer to the
+ * output stream in large chunks, instead of one small write per row.
+ * Fields are quoted following RFC 4180 when they contain a comma, quote or line break.
+ * Not thread-safe.
+ */
+public class CsvExportWriter implements Closeable {
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private final OutputStream outputStream;
+    private final byte[] buffer = new byte[CHUNK_SIZE];
+    private int position = 0;
+    private long rowsWritten = 0;
+
+    public CsvExportWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Write the header row; not counted in {@link #getRowsWritten()}
+     */
+    public void writeHeader(String header) throws IOException {
+        writeRaw(header);
+        writeByte('\n');
+    }
+
+    /**
+     * Append one row; null fields are written as empty values
+     */
+    public void writeRow(String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writeByte(',');
+            }
+            writeField(fields[i]);
+        }
+        writeByte('\n');
+        rowsWritten++;
+    }
+
+    public long getRowsWritten() {
+        return rowsWritten;
+    }
+
+    public void flush() throws IOException {
+        if (position > 0) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            outputStream.close();
+        }
+    }
+
+    private void writeField(String field) throws IOException {
+        if (field == null || field.isEmpty()) {
+            return;
+        }
+        if (!needsQuotes(field)) {
+            writeRaw(field);
+            return;
+        }
+
+        writeByte('"');
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == '"') {
+                writeByte('"'); // Escape quotes by doubling them
+            }
+            i = writeChar(field, i);
+        }
+        writeByte('"');
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void writeRaw(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            i = writeChar(value, i);
+        }
+    }
+
+    /**
+     * Encode the char at index as UTF-8
+     * @return Index of the last char consumed (a surrogate pair takes two)
+     */
+    private int writeChar(String value, int index) throws IOException {
+        char c = value.charAt(index);
+        if (c < 0x80) {
+            writeByte(c);
+        } else if (c < 0x800) {
+            writeByte(0xC0 | (c >> 6));
+            writeByte(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && index + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(index + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+            writeByte(0xF0 | (codePoint >> 18));
+            writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+            writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+            writeByte(0x80 | (codePoint & 0x3F));
+            return index + 1;
+        } else if (Character.isSurrogate(c)) {
+            writeByte('?'); // Unpaired surrogate, same replacement String.getBytes uses
+        } else {
+            writeByte(0xE0 | (c >> 12));
+            writeByte(0x80 | ((c >> 6) & 0x3F));
+            writeByte(0x80 | (c & 0x3F));
+        }
+        return index;
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (position == buffer.length) {
+            outputStream.write(buffer, 0, position);
+            position = 0;
+        }
+        buffer[position++] = (byte) b;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.studentmanagement.utils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * RFC 4180 CSV reader working directly over a char buffer.
+ * Records are read one at a time with {@link #nextRecord()}; the characters of all
+ * fields of the current record are kept in one reusable buffer, and a String is only
+ * created when a field is asked for. Quoted fields may contain commas, doubled
+ * quotes and line breaks. Records end with LF, CRLF or CR.
+ * Not thread-safe.
+ */
+public class CsvTokenizer implements Closeable {
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final char QUOTE = '"';
+    private static final char DELIMITER = ',';
+
+    private final Reader reader;
+    private final char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private int readPosition = 0;
+    private int readLimit = 0;
+    private boolean endOfInput = false;
+
+    // Characters of every field of the current record, back to back
+    private char[] fieldChars = new char[256];
+    private int fieldLength = 0;
+    // Field i spans fieldChars[fieldStarts[i], fieldEnds[i])
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount = 0;
+    private long recordNumber = 0;
+
+    public CsvTokenizer(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Advance to the next record
+     * @return False when the input is exhausted
+     */
+    public boolean nextRecord() throws IOException {
+        fieldLength = 0;
+        fieldCount = 0;
+
+        int c = read();
+        if (c == -1) {
+            return false;
+        }
+
+        boolean inQuotes = false;
+        startField();
+        while (true) {
+            if (inQuotes) {
+                if (c == -1) {
+                    // Unterminated quote: keep what was read as the last field
+                    endField();
+                    break;
+                }
+                if (c == QUOTE) {
+                    int next = read();
+                    if (next == QUOTE) {
+                        append(QUOTE); // Escaped quote
+                    } else {
+                        inQuotes = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    append((char) c);
+                }
+            } else if (c == -1 || c == '\n') {
+                endField();
+                break;
+            } else if (c == '\r') {
+                endField();
+                if (peek() == '\n') {
+                    read();
+                }
+                break;
+            } else if (c == DELIMITER) {
+                endField();
+                startField();
+            } else if (c == QUOTE) {
+                inQuotes = true;
+            } else {
+                append((char) c);
+            }
+            c = read();
+        }
+
+        recordNumber++;
+        return true;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Value of a field of the current record; a new String on every call
+     */
+    public String getField(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field " + index + " of " + fieldCount);
+        }
+        return new String(fieldChars, fieldStarts[index], fieldEnds[index] - fieldStarts[index]);
+    }
+
+    /**
+     * True if the record is a blank line
+     */
+    public boolean isEmptyRecord() {
+        return fieldCount == 1 && fieldEnds[0] == fieldStarts[0];
+    }
+
+    // 1-based number of the current record, counting the header
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void startField() {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldCount * 2];
+            int[] ends = new int[fieldCount * 2];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        fieldStarts[fieldCount] = fieldLength;
+    }
+
+    private void endField() {
+        fieldEnds[fieldCount++] = fieldLength;
+    }
+
+    private void append(char c) {
+        if (fieldLength == fieldChars.length) {
+            char[] grown = new char[fieldChars.length * 2];
+            System.arraycopy(fieldChars, 0, grown, 0, fieldLength);
+            fieldChars = grown;
+        }
+        fieldChars[fieldLength++] = c;
+    }
+
+    private int read() throws IOException {
+        if (readPosition == readLimit && !fill()) {
+            return -1;
+        }
+        return readBuffer[readPosition++];
+    }
+
+    private int peek() throws IOException {
+        if (readPosition == readLimit && !fill()) {
+            return -1;
+        }
+        return readBuffer[readPosition];
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        int count = reader.read(readBuffer, 0, readBuffer.length);
+        if (count <= 0) {
+            endOfInput = true;
+            return false;
+        }
+        readPosition = 0;
+        readLimit = count;
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.studentmanagement.utils;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Gives login history records written before loginAt existed a loginAt parsed from
+ * their "yyyy-MM-dd HH:mm:ss" loginDate, so they show up in queries ordered by loginAt.
+ * The strings carry no time zone; they are read in this device's zone.
+ */
+public class LoginHistoryBackfill extends CollectionBackfill {
+    private static final String TAG = "LoginHistoryBackfill";
+    private static final String LOGIN_DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    // changesFor() is called from one worker thread, so the formats are not shared
+    private final SimpleDateFormat localFormat = new SimpleDateFormat(LOGIN_DATE_PATTERN, Locale.getDefault());
+    private final SimpleDateFormat usFormat = new SimpleDateFormat(LOGIN_DATE_PATTERN, Locale.US);
+
+    public LoginHistoryBackfill(Context context, FirebaseFirestore db) {
+        super(context, db, TAG, "loginHistory", "loginHistoryLoginAtVersion", 1);
+    }
+
+    @Nullable
+    @Override
+    protected Map<String, Object> changesFor(DocumentSnapshot document) {
+        if (document.contains("loginAt")) {
+            return null;
+        }
+        String loginDate = document.getString("loginDate");
+        if (loginDate == null) {
+            return null;
+        }
+        // Written with the recording device's locale, which may not use ASCII digits
+        for (SimpleDateFormat format : new SimpleDateFormat[]{localFormat, usFormat}) {
+            try {
+                return Collections.singletonMap("loginAt", format.parse(loginDate).getTime());
+            } catch (ParseException e) {
+                // Try the next format
+            }
+        }
+        Log.w(TAG, "Unreadable loginDate \"" + loginDate + "\" on " + document.getId());
+        return null;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.studentmanagement.utils;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a large CSV file on several cores.
+ * The calling thread only scans the text for record boundaries, tracking quotes so a
+ * line break inside a quoted field never splits a record, and cuts it into chunks of
+ * whole records. Chunks are tokenized and mapped on a fork-join pool; finished chunks
+ * are handed back to the calling thread in completion order, not file order. At most
+ * two chunks per core are in memory at a time.
+ * Records that map to null count as skipped, except blank lines and header records.
+ */
+public class ParallelCsvParser<T> {
+    // Chars per chunk; a chunk grows past this only to finish a record
+    public static final int CHUNK_CHARS = 256 * 1024;
+
+    public interface RecordMapper<T> {
+        // Called on pool threads; must not keep the tokenizer
+        @Nullable
+        T map(CsvTokenizer record);
+    }
+
+    public interface ChunkConsumer<T> {
+        // Called on the parsing thread; may block to apply backpressure
+        void accept(Chunk<T> chunk) throws InterruptedException;
+    }
+
+    /**
+     * Records parsed from one chunk
+     */
+    public static class Chunk<T> {
+        public final List<T> records = new ArrayList<>();
+        // 1-based record number in the whole file for each entry of records
+        public final List<Long> recordNumbers = new ArrayList<>();
+        public int skippedRecords = 0;
+    }
+
+    private final ForkJoinPool pool;
+    private final RecordMapper<T> mapper;
+    private final int headerRecords;
+    private final int maxChunksInFlight;
+
+    public ParallelCsvParser(ForkJoinPool pool, RecordMapper<T> mapper, int headerRecords) {
+        this.pool = pool;
+        this.mapper = mapper;
+        this.headerRecords = headerRecords;
+        this.maxChunksInFlight = pool.getParallelism() * 2;
+    }
+
+    /**
+     * Parse the whole input, blocking until every chunk has been consumed
+     */
+    @WorkerThread
+    public void parse(Reader reader, ChunkConsumer<T> consumer) throws IOException, InterruptedException {
+        CompletionService<Chunk<T>> completion = new ExecutorCompletionService<>(pool);
+        // Only chunks not yet handed to the consumer, so finished chunks can be collected
+        Deque<Future<Chunk<T>>> inFlight = new ArrayDeque<>(maxChunksInFlight + 1);
+
+        char[] pending = new char[CHUNK_CHARS * 2];
+        int pendingLength = 0;
+        int scanned = 0;
+        int boundary = 0; // End of the last complete record in pending
+        long recordsBeforeBoundary = 0;
+        long nextRecordNumber = 1;
+        boolean inQuotes = false;
+
+        try {
+            while (true) {
+                if (pending.length - pendingLength < CHUNK_CHARS) {
+                    char[] grown = new char[pending.length * 2];
+                    System.arraycopy(pending, 0, grown, 0, pendingLength);
+                    pending = grown;
+                }
+                int count = reader.read(pending, pendingLength, CHUNK_CHARS);
+                boolean endOfInput = count < 0;
+                if (!endOfInput) {
+                    pendingLength += count;
+                }
+
+                // Find record ends in the new text; quotes toggle, so doubled quotes cancel out
+                for (; scanned < pendingLength; scanned++) {
+                    char c = pending[scanned];
+                    if (c == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (!inQuotes && c == '\n') {
+                        boundary = scanned + 1;
+                        recordsBeforeBoundary++;
+                    } else if (!inQuotes && c == '\r') {
+                        if (scanned + 1 == pendingLength && !endOfInput) {
+                            break; // Wait for the next read to tell CR from CRLF
+                        }
+                        if (scanned + 1 == pendingLength || pending[scanned + 1] != '\n') {
+                            boundary = scanned + 1;
+                            recordsBeforeBoundary++;
+                        }
+                    }
+                }
+
+                if (endOfInput) {
+                    if (pendingLength > 0) {
+                        inFlight.add(completion.submit(parseTask(pending, pendingLength, nextRecordNumber)));
+                    }
+                    break;
+                }
+                if (pendingLength < CHUNK_CHARS || boundary == 0) {
+                    continue;
+                }
+
+                inFlight.add(completion.submit(parseTask(pending, boundary, nextRecordNumber)));
+                nextRecordNumber += recordsBeforeBoundary;
+
+                // Keep the partial record for the next chunk
+                System.arraycopy(pending, boundary, pending, 0, pendingLength - boundary);
+                pendingLength -= boundary;
+                scanned -= boundary;
+                boundary = 0;
+                recordsBeforeBoundary = 0;
+
+                while (inFlight.size() >= maxChunksInFlight) {
+                    consumer.accept(takeChunk(completion, inFlight));
+                }
+            }
+
+            while (!inFlight.isEmpty()) {
+                consumer.accept(takeChunk(completion, inFlight));
+            }
+        } finally {
+            // Stop outstanding work if the consumer or the read failed
+            for (Future<Chunk<T>> future : inFlight) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private Callable<Chunk<T>> parseTask(char[] source, int length, long firstRecordNumber) {
+        char[] text = new char[length];
+        System.arraycopy(source, 0, text, 0, length);
+        return () -> parseChunk(text, firstRecordNumber);
+    }
+
+    private Chunk<T> parseChunk(char[] text, long firstRecordNumber) throws IOException {
+        Chunk<T> chunk = new Chunk<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(new CharArrayReader(text));
+        while (tokenizer.nextRecord()) {
+            long recordNumber = firstRecordNumber + tokenizer.getRecordNumber() - 1;
+            if (recordNumber <= headerRecords) {
+                continue;
+            }
+            T record = mapper.map(tokenizer);
+            if (record != null) {
+                chunk.records.add(record);
+                chunk.recordNumbers.add(recordNumber);
+            } else if (!tokenizer.isEmptyRecord()) {
+                chunk.skippedRecords++;
+            }
+        }
+        return chunk;
+    }
+
+    // Next finished chunk; its future leaves inFlight so nothing here keeps the chunk alive
+    private static <T> Chunk<T> takeChunk(CompletionService<Chunk<T>> completion,
+                                          Deque<Future<Chunk<T>>> inFlight)
+            throws IOException, InterruptedException {
+        Future<Chunk<T>> done = completion.take();
+        inFlight.remove(done);
+        try {
+            return done.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Failed to parse CSV chunk", cause);
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.example.studentmanagement.utils;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.OpenableColumns;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.studentmanagement.models.Student;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Imports students from a CSV file without holding the file in memory.
+ * The calling thread parses rows into a bounded queue; a writer thread drains it
+ * into a BulkWriter, which commits batches while parsing continues. When Firestore
+ * falls behind, the writer's backpressure fills the queue and parsing pauses, so
+ * memory stays constant whatever the file size. Large files are split into chunks
+ * parsed on several cores by {@link ParallelCsvParser}.
+ * Rows are upserted by studentId through {@link StudentUpserter}, so re-importing a
+ * file only writes the students that changed. Rows without a studentId are skipped.
+ * Repeats of a studentId are only dropped within a group written together, so no set
+ * of every ID read is kept; a later repeat is merged into the same keyed document, and
+ * one already matching it is skipped by its content hash.
+ */
+public class StudentCsvImporter {
+    private static final String TAG = "StudentCsvImporter";
+
+    // Rows parsed but not yet handed to the writer
+    public static final int QUEUE_CAPACITY = 1000;
+
+    // Smaller files parse faster on one thread than it takes to split them
+    public static final long PARALLEL_MIN_BYTES = 4L * 1024 * 1024;
+
+    // Queued after the last row to tell the writer stage to finish
+    private static final Row END_OF_FILE = new Row(-1, null);
+
+    private final Context context;
+    private final Uri fileUri;
+    private final StudentUpserter upserter;
+    private final CSVUtils.OnCSVOperationListener listener;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final BlockingQueue<Row> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final AtomicInteger parsedRows = new AtomicInteger();
+    private final AtomicInteger skippedRows = new AtomicInteger();
+    private final AtomicInteger unchangedRows = new AtomicInteger();
+    private final AtomicInteger repeatedRows = new AtomicInteger();
+    private volatile boolean parsingFinished = false;
+    private volatile IOException readError;
+
+    private static class Row {
+        final int index;
+        final Student student;
+
+        Row(int index, Student student) {
+            this.index = index;
+            this.student = student;
+        }
+    }
+
+    public StudentCsvImporter(Context context, Uri fileUri, StudentUpserter upserter,
+                              CSVUtils.OnCSVOperationListener listener) {
+        this.context = context.getApplicationContext();
+        this.fileUri = fileUri;
+        this.upserter = upserter;
+        this.listener = listener;
+    }
+
+    /**
+     * Parse the file on the calling thread while the writer stage commits rows.
+     * Files of at least {@link #PARALLEL_MIN_BYTES} are parsed on all cores.
+     */
+    @WorkerThread
+    public void run() {
+        AppExecutors.get().bulk().execute(this::writeRows);
+
+        try (InputStream inputStream = context.getContentResolver().openInputStream(fileUri)) {
+            if (inputStream == null) {
+                throw new IOException("Could not open file for reading");
+            }
+            Reader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+            long fileSize = querySize();
+            if (fileSize >= PARALLEL_MIN_BYTES && Runtime.getRuntime().availableProcessors() > 1) {
+                Log.d(TAG, "Parsing " + fileSize + " bytes in parallel");
+                parseParallel(reader);
+            } else {
+                parseSerial(reader);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading students CSV", e);
+            readError = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            readError = new IOException("Import interrupted", e);
+        } finally {
+            parsingFinished = true;
+            finishQueue();
+        }
+    }
+
+    private void parseSerial(Reader reader) throws IOException, InterruptedException {
+        CsvTokenizer tokenizer = new CsvTokenizer(reader);
+        tokenizer.nextRecord(); // Skip header record
+        while (tokenizer.nextRecord()) {
+            Student student = CSVUtils.recordToStudent(tokenizer);
+            if (student == null) {
+                if (!tokenizer.isEmptyRecord()) {
+                    skippedRows.incrementAndGet();
+                }
+                continue;
+            }
+            enqueue(tokenizer.getRecordNumber(), student);
+        }
+    }
+
+    // Rows reach the writer in chunk completion order, which is fine since each row is its own document
+    private void parseParallel(Reader reader) throws IOException, InterruptedException {
+        ParallelCsvParser<Student> parser = new ParallelCsvParser<>(
+                AppExecutors.get().parallel(), CSVUtils::recordToStudent, 1);
+        parser.parse(reader, chunk -> {
+            skippedRows.addAndGet(chunk.skippedRecords);
+            for (int i = 0; i < chunk.records.size(); i++) {
+                enqueue(chunk.recordNumbers.get(i), chunk.records.get(i));
+            }
+        });
+    }
+
+    private void enqueue(long recordNumber, Student student) throws InterruptedException {
+        String studentId = student.getStudentId();
+        if (studentId == null || studentId.isEmpty()) {
+            skippedRows.incrementAndGet();
+            return;
+        }
+        // Blocks while the writer is behind
+        queue.put(new Row(dataRowIndex(recordNumber), student));
+        parsedRows.incrementAndGet();
+    }
+
+    // 0-based data row for a file record number, record 1 being the header
+    private static int dataRowIndex(long recordNumber) {
+        return (int) (recordNumber - 2);
+    }
+
+    private long querySize() {
+        try (Cursor cursor = context.getContentResolver().query(fileUri,
+                new String[]{OpenableColumns.SIZE}, null, null, null)) {
+            if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+                return cursor.getLong(0);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Could not read file size", e);
+        }
+        return -1;
+    }
+
+    // Always hand the writer its end marker so it can close and report, even after an error
+    private void finishQueue() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(END_OF_FILE);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeRows() {
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        BulkWriter writer = new BulkWriter(db, new BulkWriter.Listener() {
+            @Override
+            public void onProgress(int committedRecords, int failedRecords, int queuedRecords) {
+                if (listener != null) {
+                    // The total is only final once the whole file has been read
+                    int total = parsingFinished ? parsedRows.get() : Math.max(parsedRows.get(), queuedRecords);
+                    listener.onProgressUpdate(committedRecords + failedRecords + unchangedRows.get()
+                            + repeatedRows.get(), total);
+                }
+            }
+
+            @Override
+            public void onBatchCommitted(List<String> recordKeys) {
+                // Progress is reported through onProgress
+            }
+
+            @Override
+            public void onComplete(BulkWriter.Result result) {
+                Log.d(TAG, "Imported " + result.committedRecords + " rows, unchanged " + unchangedRows.get()
+                        + ", repeated " + repeatedRows.get() + ", skipped " + skippedRows.get()
+                        + ", failed " + result.failedRecords);
+                if (listener != null) {
+                    listener.onOperationComplete(result.committedRecords + unchangedRows.get() > 0, summary(result));
+                }
+            }
+        });
+
+        List<Row> group = new ArrayList<>(StudentUpserter.GROUP_SIZE);
+        try {
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                // Wait for one row, then take whatever else is ready
+                group.clear();
+                group.add(queue.take());
+                queue.drainTo(group, StudentUpserter.GROUP_SIZE - 1);
+                if (group.get(group.size() - 1) == END_OF_FILE) {
+                    group.remove(group.size() - 1);
+                    endOfFile = true;
+                }
+                writeGroup(writer, group);
+            }
+            writer.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Log.e(TAG, "Student import writer interrupted", e);
+            handler.post(() -> {
+                if (listener != null) {
+                    listener.onOperationComplete(false, "Import was interrupted");
+                }
+            });
+        }
+    }
+
+    private void writeGroup(BulkWriter writer, List<Row> group) throws InterruptedException {
+        if (group.isEmpty()) {
+            return;
+        }
+        // The first row of a studentId in the group wins; the set is bounded by the group size
+        Set<String> groupIds = new HashSet<>();
+        List<Row> rows = new ArrayList<>(group.size());
+        List<Student> students = new ArrayList<>(group.size());
+        for (Row row : group) {
+            if (groupIds.add(row.student.getStudentId())) {
+                rows.add(row);
+                students.add(row.student);
+            } else {
+                repeatedRows.incrementAndGet();
+            }
+        }
+
+        List<BulkWriter.Operation> writes = upserter.planWrites(students);
+
+        for (int i = 0; i < rows.size(); i++) {
+            Row row = rows.get(i);
+            if (writes.get(i) == null) {
+                unchangedRows.incrementAndGet();
+            } else {
+                writer.add(BatchOperationsUtil.recordKey(row.index, row.student.getStudentId()), writes.get(i));
+            }
+        }
+    }
+
+    private String summary(BulkWriter.Result result) {
+        if (readError != null && result.committedRecords == 0 && unchangedRows.get() == 0) {
+            return "Error reading the CSV file: " + readError.getMessage();
+        }
+        if (parsedRows.get() == 0) {
+            return "No valid student records found in the CSV file";
+        }
+
+        StringBuilder message = new StringBuilder(result.committedRecords + " students imported successfully");
+        if (unchangedRows.get() > 0) {
+            message.append(", ").append(unchangedRows.get()).append(" already up to date");
+        }
+        if (result.failedRecords > 0) {
+            message.append(", ").append(result.failedRecords).append(" failed");
+            int shown = 0;
+            for (Map.Entry<String, Exception> failure : result.failures.entrySet()) {
+                if (shown++ == 3) {
+                    message.append(", ...");
+                    break;
+                }
+                message.append(shown == 1 ? ": " : ", ").append(failure.getKey());
+            }
+        }
+        if (repeatedRows.get() > 0) {
+            message.append(", ").append(repeatedRows.get()).append(" repeated rows skipped");
+        }
+        if (skippedRows.get() > 0) {
+            message.append(", ").append(skippedRows.get()).append(" invalid rows skipped");
+        }
+        if (readError != null) {
+            message.append(". Reading stopped early: ").append(readError.getMessage());
+        }
+        return message.toString();
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.studentmanagement.utils;
+
+import com.example.studentmanagement.models.Student;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * In-memory inverted index over a student's name, student ID, email and class name.
+ * Every field is normalized once when the student is added; a query is answered by
+ * prefix range lookups in a sorted token map instead of scanning every student.
+ * A student matches when each word of the query is a prefix of one of its tokens.
+ */
+public class StudentSearchIndex {
+
+    // token -> ids of the students having that token
+    private final TreeMap<String, Set<String>> tokenIndex = new TreeMap<>();
+    // student id -> indexed entry
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long nextSequence = 0;
+
+    private static class Entry {
+        Student student;
+        Set<String> tokens;
+        long sequence; // Keeps results in the order students were loaded
+    }
+
+    /**
+     * Add a student, or re-index it if a student with the same id is already present
+     */
+    public synchronized void add(Student student) {
+        if (student == null || student.getId() == null) {
+            return;
+        }
+
+        Entry entry = entries.get(student.getId());
+        if (entry != null) {
+            unlinkTokens(student.getId(), entry.tokens);
+        } else {
+            entry = new Entry();
+            entry.sequence = nextSequence++;
+            entries.put(student.getId(), entry);
+        }
+
+        entry.student = student;
+        entry.tokens = tokensOf(student);
+        for (String token : entry.tokens) {
+            Set<String> ids = tokenIndex.get(token);
+            if (ids == null) {
+                ids = new HashSet<>(2);
+                tokenIndex.put(token, ids);
+            }
+            ids.add(student.getId());
+        }
+    }
+
+    public synchronized void addAll(Collection<Student> students) {
+        for (Student student : students) {
+            add(student);
+        }
+    }
+
+    public void update(Student student) {
+        add(student);
+    }
+
+    public synchronized void remove(String studentId) {
+        Entry entry = entries.remove(studentId);
+        if (entry != null) {
+            unlinkTokens(studentId, entry.tokens);
+        }
+    }
+
+    public synchronized void clear() {
+        tokenIndex.clear();
+        entries.clear();
+        nextSequence = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * All indexed students, in the order they were first added
+     */
+    public synchronized List<Student> all() {
+        List<Entry> ordered = new ArrayList<>(entries.values());
+        Collections.sort(ordered, (e1, e2) -> Long.compare(e1.sequence, e2.sequence));
+        List<Student> result = new ArrayList<>(ordered.size());
+        for (Entry entry : ordered) {
+            result.add(entry.student);
+        }
+        return result;
+    }
+
+    /**
+     * Students matching every word of the query, in load order
+     */
+    public synchronized List<Student> search(String query) {
+        List<String> queryTokens = tokenize(normalize(query));
+        if (queryTokens.isEmpty()) {
+            return all();
+        }
+
+        Set<String> matches = null;
+        for (String queryToken : queryTokens) {
+            Set<String> tokenMatches = idsWithPrefix(queryToken);
+            if (matches == null) {
+                matches = tokenMatches;
+            } else {
+                matches.retainAll(tokenMatches);
+            }
+            if (matches.isEmpty()) {
+                return new ArrayList<>();
+            }
+        }
+
+        List<Entry> ordered = new ArrayList<>(matches.size());
+        for (String id : matches) {
+            ordered.add(entries.get(id));
+        }
+        Collections.sort(ordered, (e1, e2) -> Long.compare(e1.sequence, e2.sequence));
+
+        List<Student> result = new ArrayList<>(ordered.size());
+        for (Entry entry : ordered) {
+            result.add(entry.student);
+        }
+        return result;
+    }
+
+    private Set<String> idsWithPrefix(String prefix) {
+        Set<String> ids = new HashSet<>();
+        // All tokens starting with prefix sort between prefix and prefix + Character.MAX_VALUE
+        for (Set<String> tokenIds : tokenIndex.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            ids.addAll(tokenIds);
+        }
+        return ids;
+    }
+
+    private void unlinkTokens(String studentId, Set<String> tokens) {
+        for (String token : tokens) {
+            Set<String> ids = tokenIndex.get(token);
+            if (ids != null) {
+                ids.remove(studentId);
+                if (ids.isEmpty()) {
+                    tokenIndex.remove(token);
+                }
+            }
+        }
+    }
+
+    private static Set<String> tokensOf(Student student) {
+        Set<String> tokens = new HashSet<>();
+        addFieldTokens(tokens, student.getName());
+        addFieldTokens(tokens, student.getStudentId());
+        addFieldTokens(tokens, student.getEmail());
+        addFieldTokens(tokens, student.getClassName());
+        return tokens;
+    }
+
+    private static void addFieldTokens(Set<String> tokens, String value) {
+        String normalized = normalize(value);
+        if (normalized.isEmpty()) {
+            return;
+        }
+        // Keep the whole value too, so the full email or ID is a single token
+        tokens.add(normalized);
+        tokens.addAll(tokenize(normalized));
+    }
+
+    /**
+     * Lower-case, trim and strip accents so "Hoàng" and "hoang" index the same way
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String lower = value.trim().toLowerCase(Locale.ROOT);
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        StringBuilder result = new StringBuilder(decomposed.length());
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            result.append(c == '\u0111' ? 'd' : c); // Vietnamese đ has no decomposition
+        }
+        return result.toString();
+    }
+
+    /**
+     * Split an already normalized value into alphanumeric words
+     */
+    public static List<String> tokenize(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(normalized.substring(start));
+        }
+        return tokens;
+    }
+}
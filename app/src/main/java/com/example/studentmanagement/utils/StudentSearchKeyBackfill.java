@@ -0,0 +1,27 @@
+package com.example.studentmanagement.utils;
+
+import android.content.Context;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.Map;
+
+/**
+ * Writes the {@link StudentSearchKeys} of students stored before the keys existed,
+ * or with keys from an older normalization.
+ */
+public class StudentSearchKeyBackfill extends CollectionBackfill {
+    private static final String TAG = "StudentSearchKeyBackfill";
+    // Bump when the key fields or their normalization change
+    private static final int KEY_VERSION = 1;
+
+    public StudentSearchKeyBackfill(Context context, FirebaseFirestore db) {
+        super(context, db, TAG, "students", "studentSearchKeysVersion", KEY_VERSION);
+    }
+
+    @Override
+    protected Map<String, Object> changesFor(DocumentSnapshot document) {
+        return StudentSearchKeys.staleKeys(document.getData());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.studentmanagement.utils;
+
+import androidx.annotation.Nullable;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Normalized copies of the student fields search runs on. They are stored on every
+ * student document, so a prefix search is a range query on a single-field index
+ * instead of a scan of the loaded roster. Keys are normalized like
+ * {@link StudentSearchIndex}, so the server and the in-memory index match the same text.
+ */
+public final class StudentSearchKeys {
+
+    public static final String NAME = "searchName";
+    public static final String STUDENT_ID = "searchStudentId";
+    public static final String EMAIL = "searchEmail";
+
+    // Key field -> field it is derived from
+    static final Map<String, String> SOURCE_FIELDS = new LinkedHashMap<>();
+
+    static {
+        SOURCE_FIELDS.put(NAME, "name");
+        SOURCE_FIELDS.put(STUDENT_ID, "studentId");
+        SOURCE_FIELDS.put(EMAIL, "email");
+    }
+
+    // Sorts after every character a key can contain, closing a prefix range
+    private static final char RANGE_END = '\uf8ff';
+
+    private StudentSearchKeys() {
+    }
+
+    /**
+     * Add the keys derived from the source fields present in a write
+     */
+    public static void putKeys(Map<String, Object> fields) {
+        for (Map.Entry<String, String> entry : SOURCE_FIELDS.entrySet()) {
+            if (fields.containsKey(entry.getValue())) {
+                Object value = fields.get(entry.getValue());
+                fields.put(entry.getKey(), key(value != null ? value.toString() : null));
+            }
+        }
+    }
+
+    /**
+     * Copy of a partial update with the keys of the fields it changes
+     */
+    public static Map<String, Object> withKeys(Map<String, Object> changes) {
+        Map<String, Object> keyed = new HashMap<>(changes);
+        putKeys(keyed);
+        return keyed;
+    }
+
+    /**
+     * Keys a stored document is missing or holds outdated values for
+     */
+    public static Map<String, Object> staleKeys(@Nullable Map<String, Object> data) {
+        Map<String, Object> stale = new HashMap<>();
+        if (data == null) {
+            return stale;
+        }
+        for (Map.Entry<String, String> entry : SOURCE_FIELDS.entrySet()) {
+            Object value = data.get(entry.getValue());
+            String key = key(value != null ? value.toString() : null);
+            if (!key.equals(data.get(entry.getKey()))) {
+                stale.put(entry.getKey(), key);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Normalized text with runs of whitespace collapsed, so "Nguyen  Van" and
+     * "nguyen van" give the same key
+     */
+    public static String key(@Nullable String value) {
+        return StudentSearchIndex.normalize(value).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Exclusive upper bound of the keys starting with a prefix
+     */
+    public static String rangeEnd(String prefix) {
+        return prefix + RANGE_END;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.studentmanagement.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.studentmanagement.models.Student;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs student search and sort off the main thread.
+ * Keystrokes are debounced, a newer query cancels the one still running,
+ * and only the result of the latest query is published back to the UI.
+ * Students the server found for a query (see {@link #setRemoteMatches}) are merged
+ * into that query's results, so matches outside the loaded students are listed too.
+ */
+public class StudentSearchPipeline {
+    private static final String TAG = "StudentSearchPipeline";
+    public static final long DEBOUNCE_MS = 250;
+
+    private final StudentSearchIndex searchIndex;
+    private final ResultListener listener;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService worker = AppExecutors.get().cpu();
+
+    // Bumped for every dispatched query; results from older generations are dropped
+    private final AtomicInteger generation = new AtomicInteger();
+    private Future<?> runningQuery;
+    private Runnable pendingQuery;
+    // Replaced, never modified, so the worker can read it without locking
+    private volatile RemoteMatches remoteMatches;
+
+    // Metrics
+    private final AtomicLong completedQueries = new AtomicLong();
+    private final AtomicLong cancelledQueries = new AtomicLong();
+    private final AtomicLong debouncedQueries = new AtomicLong();
+    private final AtomicLong totalLatencyMs = new AtomicLong();
+    private volatile long lastLatencyMs = 0;
+
+    public interface ResultListener {
+        // Always called on the main thread, and only for the latest query
+        void onSearchResult(String query, int sortOption, List<Student> results);
+    }
+
+    private static class RemoteMatches {
+        final String key;
+        final List<Student> students;
+
+        RemoteMatches(String key, List<Student> students) {
+            this.key = key;
+            this.students = students;
+        }
+    }
+
+    public StudentSearchPipeline(StudentSearchIndex searchIndex, ResultListener listener) {
+        this.searchIndex = searchIndex;
+        this.listener = listener;
+    }
+
+    /**
+     * Merge students found by the server into the results of a query, replacing
+     * the matches set for any other query. Takes effect from the next dispatched query.
+     */
+    public void setRemoteMatches(String query, List<Student> students) {
+        remoteMatches = new RemoteMatches(StudentSearchKeys.key(query), new ArrayList<>(students));
+    }
+
+    /**
+     * Drop a deleted student from the server matches
+     */
+    public void removeRemoteMatch(String studentId) {
+        RemoteMatches current = remoteMatches;
+        if (current == null) {
+            return;
+        }
+        List<Student> students = new ArrayList<>(current.students);
+        if (students.removeIf(student -> studentId.equals(student.getId()))) {
+            remoteMatches = new RemoteMatches(current.key, students);
+        }
+    }
+
+    /**
+     * Schedule a query after the debounce delay; replaces any query still waiting
+     */
+    public void submit(String query, int sortOption) {
+        if (pendingQuery != null) {
+            mainHandler.removeCallbacks(pendingQuery);
+            debouncedQueries.incrementAndGet();
+        }
+        pendingQuery = () -> {
+            pendingQuery = null;
+            dispatch(query, sortOption);
+        };
+        mainHandler.postDelayed(pendingQuery, DEBOUNCE_MS);
+    }
+
+    /**
+     * Run a query right away, e.g. after a sort change or when the data changed
+     */
+    public void submitNow(String query, int sortOption) {
+        if (pendingQuery != null) {
+            mainHandler.removeCallbacks(pendingQuery);
+            pendingQuery = null;
+            debouncedQueries.incrementAndGet();
+        }
+        dispatch(query, sortOption);
+    }
+
+    private void dispatch(String query, int sortOption) {
+        final int queryGeneration = generation.incrementAndGet();
+        final long startTime = SystemClock.elapsedRealtime();
+
+        // A newer query makes the running one stale
+        if (runningQuery != null && !runningQuery.isDone()) {
+            runningQuery.cancel(true);
+            cancelledQueries.incrementAndGet();
+        }
+
+        try {
+            runningQuery = worker.submit(() -> {
+                List<Student> results = query.isEmpty() ? searchIndex.all() : searchIndex.search(query);
+                mergeRemoteMatches(query, results);
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                Comparator<Student> comparator = comparatorFor(sortOption);
+                if (comparator != null) {
+                    Collections.sort(results, comparator);
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+
+                mainHandler.post(() -> {
+                    if (queryGeneration != generation.get()) {
+                        cancelledQueries.incrementAndGet();
+                        return;
+                    }
+                    lastLatencyMs = SystemClock.elapsedRealtime() - startTime;
+                    totalLatencyMs.addAndGet(lastLatencyMs);
+                    completedQueries.incrementAndGet();
+                    Log.d(TAG, getMetricsSummary());
+
+                    if (listener != null) {
+                        listener.onSearchResult(query, sortOption, results);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            // The cpu pool is saturated; the next query or data change searches again
+            Log.w(TAG, "Search rejected, cpu pool is full", e);
+        }
+    }
+
+    // Loaded students win over the server's copy, which the listener does not update
+    private void mergeRemoteMatches(String query, List<Student> results) {
+        RemoteMatches remote = remoteMatches;
+        if (query.isEmpty() || remote == null || !remote.key.equals(StudentSearchKeys.key(query))) {
+            return;
+        }
+        Set<String> listed = new HashSet<>();
+        for (Student student : results) {
+            listed.add(student.getId());
+        }
+        for (Student student : remote.students) {
+            if (listed.add(student.getId())) {
+                results.add(student);
+            }
+        }
+    }
+
+    /**
+     * Comparator for a position of the sort spinner, or null to keep load order
+     */
+    public static Comparator<Student> comparatorFor(int sortOption) {
+        return StudentSortOption.fromPosition(sortOption).getComparator();
+    }
+
+    public long getCompletedQueries() {
+        return completedQueries.get();
+    }
+
+    public long getCancelledQueries() {
+        return cancelledQueries.get();
+    }
+
+    public long getDebouncedQueries() {
+        return debouncedQueries.get();
+    }
+
+    public long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+
+    public long getAverageLatencyMs() {
+        long completed = completedQueries.get();
+        return completed == 0 ? 0 : totalLatencyMs.get() / completed;
+    }
+
+    public String getMetricsSummary() {
+        return "queries=" + getCompletedQueries()
+                + " cancelled=" + getCancelledQueries()
+                + " debounced=" + getDebouncedQueries()
+                + " lastLatencyMs=" + getLastLatencyMs()
+                + " avgLatencyMs=" + getAverageLatencyMs();
+    }
+
+    /**
+     * Drop pending and running work; call when the owning view is destroyed
+     */
+    public void shutdown() {
+        if (pendingQuery != null) {
+            mainHandler.removeCallbacks(pendingQuery);
+            pendingQuery = null;
+        }
+        generation.incrementAndGet();
+        // The pool is shared, so only cancel our own query
+        if (runningQuery != null) {
+            runningQuery.cancel(true);
+        }
+    }
+}
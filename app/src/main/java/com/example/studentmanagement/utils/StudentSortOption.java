@@ -0,0 +1,68 @@
+package com.example.studentmanagement.utils;
+
+import androidx.annotation.Nullable;
+
+import com.example.studentmanagement.models.Student;
+
+import java.util.Comparator;
+
+/**
+ * Orders of the student list, in the order of the sort spinner (R.array.sort_options).
+ * Each order is both a server query, so the first page of a partly loaded roster is
+ * already the right page, and a comparator for re-sorting students held in memory.
+ * Comparators compare the raw values like Firestore does, case-sensitively, so
+ * re-sorting loaded pages never disagrees with the pages still to come.
+ */
+public enum StudentSortOption {
+    // Load order; the server still pages by name
+    DEFAULT("name", false, null),
+    NAME_ASC("name", false, (s1, s2) -> compareValues(s1.getName(), s2.getName())),
+    NAME_DESC("name", true, (s1, s2) -> compareValues(s2.getName(), s1.getName())),
+    STUDENT_ID_ASC("studentId", false, (s1, s2) -> compareValues(s1.getStudentId(), s2.getStudentId())),
+    STUDENT_ID_DESC("studentId", true, (s1, s2) -> compareValues(s2.getStudentId(), s1.getStudentId())),
+    CLASS_NAME("className", false, (s1, s2) -> compareValues(s1.getClassName(), s2.getClassName()));
+
+    private final String field;
+    private final boolean descending;
+    private final Comparator<Student> comparator;
+
+    StudentSortOption(String field, boolean descending, Comparator<Student> comparator) {
+        this.field = field;
+        this.descending = descending;
+        this.comparator = comparator;
+    }
+
+    /**
+     * Option at a position of the sort spinner; unknown positions keep load order
+     */
+    public static StudentSortOption fromPosition(int position) {
+        StudentSortOption[] options = values();
+        return position >= 0 && position < options.length ? options[position] : DEFAULT;
+    }
+
+    /**
+     * Firestore field the server query orders by; each has a single-field index
+     */
+    public String getField() {
+        return field;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Comparator for students held in memory, or null to keep load order
+     */
+    @Nullable
+    public Comparator<Student> getComparator() {
+        return comparator;
+    }
+
+    // Null values sort first, as Firestore orders null before any string
+    private static int compareValues(String a, String b) {
+        if (a == null) return b == null ? 0 : -1;
+        if (b == null) return 1;
+        return a.compareTo(b);
+    }
+}
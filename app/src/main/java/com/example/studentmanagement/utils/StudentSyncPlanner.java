@@ -0,0 +1,216 @@
+package com.example.studentmanagement.utils;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.studentmanagement.models.Student;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Delta sync of the students collection with a roster CSV.
+ * {@link #plan()} reads a fingerprint of every existing student (studentId, document
+ * and a hash of the imported fields), then compares the file against it and sorts
+ * each row into insert, update or unchanged. Students missing from the file are
+ * listed as delete candidates; they are reported, never deleted here. The plan is a
+ * dry run that counts rows and keeps the fingerprints, so its memory grows with the
+ * collection but not with the file. Nothing is written until
+ * {@link #commit(Plan, CSVUtils.OnCSVOperationListener)} is called with it, which streams
+ * the file again through {@link StudentCsvImporter}; {@link StudentUpserter} compares each
+ * row with the plan's fingerprints, so only inserts and updates are written and the
+ * stored students are not read a second time.
+ */
+public class StudentSyncPlanner {
+    private static final String TAG = "StudentSyncPlanner";
+
+    // Existing students read per request while building fingerprints
+    private static final int FINGERPRINT_PAGE_SIZE = 500;
+
+    private final Context context;
+    private final Uri fileUri;
+    private final FirebaseFirestore db;
+
+    /**
+     * Outcome of comparing the file with the collection
+     */
+    public static class Plan {
+        public int inserts = 0;
+        public int updates = 0;
+        public int unchanged = 0;
+        // Rows that are malformed, lack a studentId or repeat one seen earlier in the file
+        public int skipped = 0;
+        // Existing documents whose studentId is not in the file, or that duplicate another
+        public final List<DocumentReference> deleteCandidates = new ArrayList<>();
+        public int existingStudents = 0;
+        // studentId -> stored document, handed to the writer on commit
+        final Map<String, StudentUpserter.Fingerprint> fingerprints = new HashMap<>();
+
+        public int getWriteCount() {
+            return inserts + updates;
+        }
+
+        /**
+         * Dry-run report shown before anything is written
+         */
+        public String getReport() {
+            StringBuilder report = new StringBuilder();
+            report.append("New students: ").append(inserts)
+                    .append("\nChanged students: ").append(updates)
+                    .append("\nUnchanged students: ").append(unchanged);
+            if (skipped > 0) {
+                report.append("\nRows skipped: ").append(skipped);
+            }
+            if (!deleteCandidates.isEmpty()) {
+                report.append("\nStudents missing from the file or duplicated: ")
+                        .append(deleteCandidates.size()).append(" (kept)");
+            }
+            report.append("\n\nWrites needed: ").append(getWriteCount())
+                    .append(" of ").append(inserts + updates + unchanged).append(" rows");
+            return report.toString();
+        }
+    }
+
+    public interface PlanListener {
+        void onPlanReady(Plan plan);
+        void onPlanFailed(String message);
+    }
+
+    public StudentSyncPlanner(Context context, Uri fileUri) {
+        this.context = context.getApplicationContext();
+        this.fileUri = fileUri;
+        this.db = FirebaseFirestore.getInstance();
+    }
+
+    /**
+     * Compare the file with the collection without writing anything
+     */
+    @WorkerThread
+    public Plan plan() throws IOException, ExecutionException, InterruptedException {
+        Plan plan = new Plan();
+        Map<String, StudentUpserter.Fingerprint> fingerprints = plan.fingerprints;
+        loadFingerprints(plan);
+        plan.existingStudents = fingerprints.size();
+        Set<String> seenStudentIds = new HashSet<>();
+
+        try (InputStream inputStream = context.getContentResolver().openInputStream(fileUri)) {
+            if (inputStream == null) {
+                throw new IOException("Could not open file for reading");
+            }
+            CsvTokenizer tokenizer = new CsvTokenizer(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            tokenizer.nextRecord(); // Skip header record
+            while (tokenizer.nextRecord()) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                Student student = CSVUtils.recordToStudent(tokenizer);
+                if (student == null) {
+                    if (!tokenizer.isEmptyRecord()) {
+                        plan.skipped++;
+                    }
+                    continue;
+                }
+                String studentId = student.getStudentId();
+                if (studentId == null || studentId.isEmpty() || !seenStudentIds.add(studentId)) {
+                    plan.skipped++;
+                    continue;
+                }
+
+                StudentUpserter.Fingerprint stored = fingerprints.get(studentId);
+                if (stored == null) {
+                    plan.inserts++;
+                } else if (stored.contentHash != StudentUpserter.contentHash(BatchOperationsUtil.importedFields(student))) {
+                    plan.updates++;
+                } else {
+                    plan.unchanged++;
+                }
+            }
+        }
+
+        for (Map.Entry<String, StudentUpserter.Fingerprint> entry : fingerprints.entrySet()) {
+            if (!seenStudentIds.contains(entry.getKey())) {
+                plan.deleteCandidates.add(entry.getValue().document);
+            }
+        }
+        Log.d(TAG, "Planned " + plan.inserts + " inserts, " + plan.updates + " updates, "
+                + plan.unchanged + " unchanged, " + plan.deleteCandidates.size() + " delete candidates");
+        return plan;
+    }
+
+    /**
+     * Import the file of a plan, writing only its new and changed students. Progress
+     * counts the rows of the file, unchanged ones included.
+     */
+    @WorkerThread
+    public void commit(Plan plan, CSVUtils.OnCSVOperationListener listener) {
+        if (plan.getWriteCount() == 0) {
+            new Handler(Looper.getMainLooper()).post(() -> {
+                if (listener != null) {
+                    listener.onOperationComplete(true, "All " + plan.unchanged + " students are already up to date");
+                }
+            });
+            return;
+        }
+        new StudentCsvImporter(context, fileUri, new StudentUpserter(db, plan.fingerprints), listener).run();
+    }
+
+    // studentId -> fingerprint of its document; surplus duplicates become delete candidates
+    private void loadFingerprints(Plan plan) throws ExecutionException, InterruptedException {
+        StudentUpserter upserter = new StudentUpserter(db);
+        Map<String, StudentUpserter.Fingerprint> fingerprints = plan.fingerprints;
+        DocumentSnapshot lastDocument = null;
+        while (true) {
+            Query query = db.collection("students")
+                    .orderBy(FieldPath.documentId())
+                    .limit(FINGERPRINT_PAGE_SIZE);
+            if (lastDocument != null) {
+                query = query.startAfter(lastDocument);
+            }
+            QuerySnapshot page = Tasks.await(query.get());
+
+            for (DocumentSnapshot document : page.getDocuments()) {
+                String studentId = document.getString("studentId");
+                if (studentId == null || studentId.isEmpty()) {
+                    continue;
+                }
+                StudentUpserter.Fingerprint fingerprint = StudentUpserter.fingerprintOf(document);
+                StudentUpserter.Fingerprint previous = fingerprints.get(studentId);
+                if (previous == null) {
+                    fingerprints.put(studentId, fingerprint);
+                } else if (upserter.isKeyedDocument(document)) {
+                    // Keep the document at the derived ID, like StudentUpserter does
+                    fingerprints.put(studentId, fingerprint);
+                    plan.deleteCandidates.add(previous.document);
+                } else {
+                    plan.deleteCandidates.add(document.getReference());
+                }
+            }
+
+            if (page.size() < FINGERPRINT_PAGE_SIZE) {
+                break;
+            }
+            lastDocument = page.getDocuments().get(page.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.studentmanagement.utils;
+
+import androidx.annotation.Nullable;
+
+import com.example.studentmanagement.models.Student;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Turns imported students into upserts keyed on the business studentId, so importing
+ * the same file again does not create duplicate documents.
+ * Existing documents come from the fingerprints {@link StudentSyncPlanner} read while
+ * planning, keyed by studentId, which also covers documents created with auto IDs
+ * before imports were keyed; nothing is looked up again while writing. Students not
+ * found get a document ID derived from their studentId. Rows whose imported fields hash
+ * the same as the stored document are not written at all; the others are merged, so
+ * fields the CSV does not carry (certificates, age, ...) are kept.
+ */
+public class StudentUpserter {
+    // Students planned together
+    public static final int GROUP_SIZE = 300;
+    // Stored hash of the imported fields, so fingerprints need no hashing of their own
+    public static final String CONTENT_HASH = "contentHash";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * What is stored for a student, without keeping the document itself
+     */
+    static class Fingerprint {
+        final DocumentReference document;
+        final long contentHash;
+
+        Fingerprint(DocumentReference document, long contentHash) {
+            this.document = document;
+            this.contentHash = contentHash;
+        }
+    }
+
+    private final FirebaseFirestore db;
+    // studentId -> stored document
+    private final Map<String, Fingerprint> stored;
+
+    public StudentUpserter(FirebaseFirestore db) {
+        this(db, Collections.emptyMap());
+    }
+
+    StudentUpserter(FirebaseFirestore db, Map<String, Fingerprint> stored) {
+        this.db = db;
+        this.stored = stored;
+    }
+
+    /**
+     * Build the writes for a group of students against the stored fingerprints
+     * @return One entry per student, in order; null where the stored document is unchanged
+     */
+    public List<BulkWriter.Operation> planWrites(List<Student> students) {
+        List<BulkWriter.Operation> writes = new ArrayList<>(students.size());
+        for (Student student : students) {
+            writes.add(planWrite(student));
+        }
+        return writes;
+    }
+
+    @Nullable
+    private BulkWriter.Operation planWrite(Student student) {
+        Map<String, Object> fields = BatchOperationsUtil.importedFields(student);
+        Fingerprint fingerprint = stored.get(student.getStudentId());
+        DocumentReference docRef;
+        if (fingerprint != null) {
+            if (fingerprint.contentHash == contentHash(fields)) {
+                return null;
+            }
+            docRef = fingerprint.document;
+        } else {
+            docRef = documentFor(student.getStudentId());
+        }
+        return batch -> batch.set(docRef, fields, SetOptions.merge());
+    }
+
+    /**
+     * Fingerprint of a stored student, from its stored hash when it has one.
+     * Documents written before the hash was stored, or whose hash a partial update
+     * dropped, are hashed from their fields.
+     */
+    static Fingerprint fingerprintOf(DocumentSnapshot document) {
+        Long storedHash = document.getLong(CONTENT_HASH);
+        return new Fingerprint(document.getReference(),
+                storedHash != null ? storedHash : contentHash(document.getData()));
+    }
+
+    /**
+     * Copy of a partial update that drops the stored content hash when it changes an
+     * imported field without writing a new hash, so the next import does not trust a stale one
+     */
+    public static Map<String, Object> withoutStaleHash(Map<String, Object> changes) {
+        if (changes.containsKey(CONTENT_HASH)) {
+            return changes;
+        }
+        Map<String, Object> updated = new HashMap<>(changes);
+        for (String field : BatchOperationsUtil.IMPORTED_FIELDS) {
+            if (changes.containsKey(field)) {
+                updated.put(CONTENT_HASH, FieldValue.delete());
+                break;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Document a student with no existing document is written to. Without a studentId
+     * there is nothing to key on, so it gets an auto ID.
+     */
+    public DocumentReference documentFor(@Nullable String studentId) {
+        if (studentId == null || studentId.isEmpty()) {
+            return db.collection("students").document();
+        }
+        byte[] name = ("student#" + studentId).getBytes(StandardCharsets.UTF_8);
+        return db.collection("students").document(UUID.nameUUIDFromBytes(name).toString().replace("-", ""));
+    }
+
+    // Prefer the document at the derived ID when older duplicates exist
+    boolean isKeyedDocument(DocumentSnapshot document) {
+        return document.getId().equals(documentFor(document.getString("studentId")).getId());
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the imported fields and their search keys; null and empty
+     * values hash the same. Documents stored without search keys hash differently,
+     * so the next import writes their keys.
+     */
+    static long contentHash(@Nullable Map<String, Object> fields) {
+        long hash = FNV_OFFSET_BASIS;
+        for (String field : BatchOperationsUtil.IMPORTED_FIELDS) {
+            hash = hashField(hash, fields, field);
+        }
+        for (String field : StudentSearchKeys.SOURCE_FIELDS.keySet()) {
+            hash = hashField(hash, fields, field);
+        }
+        return hash;
+    }
+
+    private static long hashField(long hash, @Nullable Map<String, Object> fields, String field) {
+        Object value = fields != null ? fields.get(field) : null;
+        String text = value != null ? value.toString() : "";
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            hash = (hash ^ (c & 0xFF)) * FNV_PRIME;
+            hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+        }
+        // Field separator, so "ab","c" and "a","bc" differ
+        return (hash ^ 0x1F) * FNV_PRIME;
+    }
+}
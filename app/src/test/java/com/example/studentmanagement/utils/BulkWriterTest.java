@@ -0,0 +1,222 @@
+package com.example.studentmanagement.utils;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * BulkWriter's bookkeeping when batches fail: bisection down to the bad records,
+ * retries of transient errors only, and completion after every record has settled
+ */
+public class BulkWriterTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    // A write that knows its record, so the fake committer can tell which records a batch holds
+    private static class FakeWrite implements BulkWriter.Operation {
+        final String key;
+
+        FakeWrite(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public void apply(WriteBatch batch) {
+        }
+    }
+
+    // Fails every batch holding one of the rejected keys, like a rules or validation error
+    private static class FakeCommitter implements BulkWriter.BatchCommitter {
+        final Set<String> rejected = new HashSet<>();
+        final List<List<String>> batches = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger transientFailures = new AtomicInteger();
+        Exception transientError;
+
+        @Override
+        public Task<Void> commit(List<BulkWriter.Operation> operations) {
+            List<String> keys = new ArrayList<>();
+            for (BulkWriter.Operation operation : operations) {
+                operation.apply(null);
+                keys.add(((FakeWrite) operation).key);
+            }
+            batches.add(keys);
+            if (transientError != null && transientFailures.getAndDecrement() > 0) {
+                return Tasks.forException(transientError);
+            }
+            for (String key : keys) {
+                if (rejected.contains(key)) {
+                    return Tasks.forException(new FirebaseFirestoreException("Rejected " + key,
+                            FirebaseFirestoreException.Code.INVALID_ARGUMENT));
+                }
+            }
+            return Tasks.forResult(null);
+        }
+    }
+
+    private static class RecordingListener implements BulkWriter.Listener {
+        final List<String> committedKeys = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AtomicInteger completions = new AtomicInteger();
+        volatile int[] lastProgress;
+        volatile BulkWriter.Result result;
+
+        @Override
+        public void onProgress(int committedRecords, int failedRecords, int totalRecords) {
+            lastProgress = new int[]{committedRecords, failedRecords, totalRecords};
+        }
+
+        @Override
+        public void onBatchCommitted(List<String> recordKeys) {
+            committedKeys.addAll(recordKeys);
+        }
+
+        @Override
+        public void onComplete(BulkWriter.Result result) {
+            this.result = result;
+            completions.incrementAndGet();
+            completed.countDown();
+        }
+
+        BulkWriter.Result await() throws InterruptedException {
+            assertTrue("writer did not complete", completed.await(10, TimeUnit.SECONDS));
+            return result;
+        }
+    }
+
+    private BulkWriter writer(FakeCommitter committer, int batchSize, int maxInFlight, RecordingListener listener) {
+        return new BulkWriter(committer, batchSize, maxInFlight, Runnable::run, scheduler, listener);
+    }
+
+    private static void addRecords(BulkWriter writer, int count) throws InterruptedException {
+        for (int i = 0; i < count; i++) {
+            writer.add("r" + i, new FakeWrite("r" + i));
+        }
+    }
+
+    @Test(timeout = 10_000)
+    public void bisectsPermanentFailuresDownToTheBadRecords() throws Exception {
+        FakeCommitter committer = new FakeCommitter();
+        committer.rejected.add("r3");
+        committer.rejected.add("r13");
+        RecordingListener listener = new RecordingListener();
+        BulkWriter writer = writer(committer, 8, 1, listener);
+
+        addRecords(writer, 16);
+        writer.close();
+        BulkWriter.Result result = listener.await();
+
+        assertEquals(14, result.committedRecords);
+        assertEquals(2, result.failedRecords);
+        assertEquals(Set.of("r3", "r13"), result.failures.keySet());
+        assertEquals(0, result.retries);
+        assertEquals(14, new HashSet<>(listener.committedKeys).size());
+        assertFalse(listener.committedKeys.contains("r3"));
+        assertArrayEquals(new int[]{14, 2, 16}, listener.lastProgress);
+        assertEquals(1, listener.completions.get());
+
+        // Each batch of 8 splits 8 -> 4 + 4 -> 2 + 2 -> 1 + 1 on its bad side: 7 commits
+        assertEquals(14, committer.batches.size());
+    }
+
+    @Test(timeout = 10_000)
+    public void batchThatCannotBeRebuiltSettlesItsRecords() throws Exception {
+        FakeCommitter committer = new FakeCommitter();
+        RecordingListener listener = new RecordingListener();
+        // One permit: a batch that never released it would block the next add() forever
+        BulkWriter writer = writer(committer, 4, 1, listener);
+
+        for (int i = 0; i < 12; i++) {
+            String key = "r" + i;
+            writer.add(key, i == 5 ? new FakeWrite(key) {
+                @Override
+                public void apply(WriteBatch batch) {
+                    throw new IllegalArgumentException("Unsupported field value");
+                }
+            } : new FakeWrite(key));
+        }
+        writer.close();
+        BulkWriter.Result result = listener.await();
+
+        assertEquals(11, result.committedRecords);
+        assertEquals(Set.of("r5"), result.failures.keySet());
+        assertTrue(result.failures.get("r5") instanceof IllegalArgumentException);
+        assertEquals(0, result.retries);
+        assertEquals(1, listener.completions.get());
+    }
+
+    @Test(timeout = 10_000)
+    public void retriesNetworkFailures() throws Exception {
+        FakeCommitter committer = new FakeCommitter();
+        committer.transientError = new RuntimeException(new IOException("Connection reset"));
+        committer.transientFailures.set(1);
+        RecordingListener listener = new RecordingListener();
+        BulkWriter writer = writer(committer, 10, 1, listener);
+
+        addRecords(writer, 5);
+        writer.close();
+        BulkWriter.Result result = listener.await();
+
+        assertEquals(5, result.committedRecords);
+        assertEquals(0, result.failedRecords);
+        assertEquals(1, result.retries);
+        assertEquals(2, committer.batches.size());
+    }
+
+    @Test(timeout = 10_000)
+    public void doesNotRetryOtherExceptions() throws Exception {
+        FakeCommitter committer = new FakeCommitter();
+        committer.transientError = new IllegalStateException("Bug");
+        committer.transientFailures.set(Integer.MAX_VALUE);
+        RecordingListener listener = new RecordingListener();
+        BulkWriter writer = writer(committer, 2, 1, listener);
+
+        addRecords(writer, 2);
+        writer.close();
+        BulkWriter.Result result = listener.await();
+
+        assertEquals(0, result.committedRecords);
+        assertEquals(Set.of("r0", "r1"), result.failures.keySet());
+        assertEquals(0, result.retries);
+        // The batch of two and both halves, each committed once
+        assertEquals(3, committer.batches.size());
+    }
+
+    @Test(timeout = 10_000)
+    public void completesWithRecordsFailedBeforeWriting() throws Exception {
+        FakeCommitter committer = new FakeCommitter();
+        RecordingListener listener = new RecordingListener();
+        BulkWriter writer = writer(committer, 10, 2, listener);
+
+        addRecords(writer, 3);
+        writer.fail("bad row", new IllegalArgumentException("Missing ID"));
+        writer.close();
+        BulkWriter.Result result = listener.await();
+
+        assertEquals(3, result.committedRecords);
+        assertEquals(Set.of("bad row"), result.failures.keySet());
+        assertArrayEquals(new int[]{3, 1, 4}, listener.lastProgress);
+    }
+}
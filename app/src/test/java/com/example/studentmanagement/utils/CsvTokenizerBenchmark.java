@@ -0,0 +1,104 @@
+package com.example.studentmanagement.utils;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Rough microbenchmark of CsvTokenizer against the line-based parser CSVUtils and
+ * CertificateCSVUtils used before it (readLine + a StringBuilder per field, without
+ * its per-line debug logging). Ignored in the unit run; remove @Ignore locally and run
+ * it on its own to compare timings.
+ */
+@Ignore("Benchmark, run by hand")
+public class CsvTokenizerBenchmark {
+
+    private static final int ROWS = 50_000;
+
+    @Test
+    public void tokenizerAgainstLineParser() throws IOException {
+        StringBuilder csv = new StringBuilder("ID,Name,Email,Phone,Class,Date of Birth,Address\n");
+        for (int i = 0; i < ROWS; i++) {
+            csv.append("S").append(i).append(",\"Nguyen, Van ").append(i).append("\",student")
+                    .append(i).append("@example.com,0900").append(i).append(",CNTT")
+                    .append(i % 20).append(",2001-01-01,\"").append(i).append(" Le Loi, District 1\"\n");
+        }
+        String input = csv.toString();
+
+        // Warm up both paths before timing
+        for (int i = 0; i < 3; i++) {
+            countWithTokenizer(input);
+            countWithLineParser(input);
+        }
+
+        long start = System.nanoTime();
+        int tokenizerFields = countWithTokenizer(input);
+        long tokenizerNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int lineParserFields = countWithLineParser(input);
+        long lineParserNanos = System.nanoTime() - start;
+
+        System.out.println("CsvTokenizer: " + tokenizerNanos / 1_000_000 + " ms, line parser: "
+                + lineParserNanos / 1_000_000 + " ms (" + tokenizerFields + " fields)");
+        assertEquals(lineParserFields, tokenizerFields);
+    }
+
+    private static int countWithTokenizer(String input) throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(input));
+        int fields = 0;
+        while (tokenizer.nextRecord()) {
+            for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                fields += tokenizer.getField(i).isEmpty() ? 0 : 1;
+            }
+        }
+        return fields;
+    }
+
+    private static int countWithLineParser(String input) throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader(input));
+        int fields = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            for (String field : legacyParseCSVLine(line)) {
+                fields += field.isEmpty() ? 0 : 1;
+            }
+        }
+        return fields;
+    }
+
+    // The parser both CSV utils used before CsvTokenizer, minus the Log.d call
+    private static List<String> legacyParseCSVLine(String line) {
+        List<String> fields = new ArrayList<>();
+        boolean inQuotes = false;
+        StringBuilder field = new StringBuilder();
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (c == '\"') {
+                if (i + 1 < line.length() && line.charAt(i + 1) == '\"') {
+                    field.append('\"');
+                    i++;
+                } else {
+                    inQuotes = !inQuotes;
+                }
+            } else if (c == ',' && !inQuotes) {
+                fields.add(field.toString());
+                field = new StringBuilder();
+            } else {
+                field.append(c);
+            }
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.studentmanagement.utils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Correctness checks for CsvTokenizer
+ */
+public class CsvTokenizerTest {
+
+    private static List<List<String>> tokenize(String csv) throws IOException {
+        List<List<String>> records = new ArrayList<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+        while (tokenizer.nextRecord()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < tokenizer.getFieldCount(); i++) {
+                fields.add(tokenizer.getField(i));
+            }
+            records.add(fields);
+        }
+        return records;
+    }
+
+    @Test
+    public void splitsSimpleRecords() throws IOException {
+        List<List<String>> records = tokenize("a,b,c\n1,2,3\n");
+        assertEquals(2, records.size());
+        assertEquals(List.of("a", "b", "c"), records.get(0));
+        assertEquals(List.of("1", "2", "3"), records.get(1));
+    }
+
+    @Test
+    public void handlesQuotedCommasAndEscapedQuotes() throws IOException {
+        List<List<String>> records = tokenize("\"Doe, John\",\"say \"\"hi\"\"\",x\n");
+        assertEquals(List.of("Doe, John", "say \"hi\"", "x"), records.get(0));
+    }
+
+    @Test
+    public void keepsNewlinesInsideQuotes() throws IOException {
+        List<List<String>> records = tokenize("S1,\"12 Main St\nApt 4\",end\r\nS2,plain,end");
+        assertEquals(2, records.size());
+        assertEquals("12 Main St\nApt 4", records.get(0).get(1));
+        assertEquals(List.of("S2", "plain", "end"), records.get(1));
+    }
+
+    @Test
+    public void handlesCrLfAndEmptyFields() throws IOException {
+        List<List<String>> records = tokenize("a,,c\r\n,\r\n");
+        assertEquals(List.of("a", "", "c"), records.get(0));
+        assertEquals(List.of("", ""), records.get(1));
+    }
+
+    @Test
+    public void reportsBlankLines() throws IOException {
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader("a,b\n\nc,d\n"));
+        assertTrue(tokenizer.nextRecord());
+        assertFalse(tokenizer.isEmptyRecord());
+        assertTrue(tokenizer.nextRecord());
+        assertTrue(tokenizer.isEmptyRecord());
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("d", tokenizer.getField(1));
+        assertFalse(tokenizer.nextRecord());
+    }
+}
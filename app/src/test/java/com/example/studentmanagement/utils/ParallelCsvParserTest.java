@@ -0,0 +1,149 @@
+package com.example.studentmanagement.utils;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * ParallelCsvParser must give the same records as one CsvTokenizer over the whole
+ * input, whatever falls on a chunk or read boundary
+ */
+public class ParallelCsvParserTest {
+
+    private final ForkJoinPool pool = new ForkJoinPool(2);
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    private static List<String> fields(CsvTokenizer record) {
+        List<String> fields = new ArrayList<>(record.getFieldCount());
+        for (int i = 0; i < record.getFieldCount(); i++) {
+            fields.add(record.getField(i));
+        }
+        return fields;
+    }
+
+    // record number -> fields, skipping blank lines and the header
+    private static Map<Long, List<String>> parseSerial(String csv) throws IOException {
+        Map<Long, List<String>> records = new TreeMap<>();
+        CsvTokenizer tokenizer = new CsvTokenizer(new StringReader(csv));
+        while (tokenizer.nextRecord()) {
+            if (tokenizer.getRecordNumber() > 1 && !tokenizer.isEmptyRecord()) {
+                records.put(tokenizer.getRecordNumber(), fields(tokenizer));
+            }
+        }
+        return records;
+    }
+
+    private Map<Long, List<String>> parseParallel(Reader reader) throws Exception {
+        Map<Long, List<String>> records = new TreeMap<>();
+        int[] chunks = {0};
+        // Blank lines map to null like any unusable record, and are not counted as skipped
+        new ParallelCsvParser<List<String>>(pool,
+                record -> record.isEmptyRecord() ? null : fields(record), 1).parse(reader, chunk -> {
+            chunks[0]++;
+            assertEquals(0, chunk.skippedRecords);
+            for (int i = 0; i < chunk.records.size(); i++) {
+                assertNull(records.put(chunk.recordNumbers.get(i), chunk.records.get(i)));
+            }
+        });
+        assertTrue("input should span several chunks", chunks[0] > 2);
+        return records;
+    }
+
+    // Rows with quoted CRLFs, commas and quotes, long enough for several chunks
+    private static String rosterCsv() {
+        StringBuilder csv = new StringBuilder("ID,Name,Address,Note\r\n");
+        int row = 0;
+        while (csv.length() < ParallelCsvParser.CHUNK_CHARS * 3 + 1000) {
+            csv.append("S").append(row).append(",\"Nguyen, Van ").append(row).append("\",");
+            // Quoted line breaks of every kind, so chunk cuts land inside quotes
+            csv.append("\"").append(row).append(" Le Loi\r\nDistrict 1\nHCMC\rVN\",");
+            csv.append("\"says \"\"hi\"\"\r\n\"");
+            csv.append(row % 7 == 0 ? "\r\n\r\n" : row % 3 == 0 ? "\n" : "\r\n");
+            row++;
+        }
+        return csv.toString();
+    }
+
+    @Test
+    public void matchesSerialParseAcrossChunkBoundaries() throws Exception {
+        String csv = rosterCsv();
+        Map<Long, List<String>> expected = parseSerial(csv);
+
+        assertEquals(expected, parseParallel(new StringReader(csv)));
+        assertEquals("0 Le Loi\r\nDistrict 1\nHCMC\rVN", expected.get(2L).get(2));
+    }
+
+    @Test
+    public void handlesCarriageReturnsAtTheEndOfARead() throws Exception {
+        String csv = rosterCsv().replace("\r\n", "\r").replace("\n", "\r\n");
+        Map<Long, List<String>> expected = parseSerial(csv);
+
+        assertEquals(expected, parseParallel(new CarriageReturnSplittingReader(csv)));
+    }
+
+    @Test
+    public void countsUnmappedRecordsAsSkipped() throws Exception {
+        StringBuilder csv = new StringBuilder("ID,Name\n");
+        int rows = 0;
+        while (csv.length() < ParallelCsvParser.CHUNK_CHARS * 2) {
+            csv.append(rows % 10 == 0 ? "broken\n\n" : "S" + rows + ",\"Name\r\n" + rows + "\"\n");
+            rows++;
+        }
+
+        int[] mapped = {0};
+        int[] skipped = {0};
+        new ParallelCsvParser<List<String>>(pool,
+                record -> record.getFieldCount() < 2 ? null : fields(record), 1)
+                .parse(new StringReader(csv.toString()), chunk -> {
+                    mapped[0] += chunk.records.size();
+                    skipped[0] += chunk.skippedRecords;
+                });
+
+        assertEquals(rows, mapped[0] + skipped[0]);
+        assertEquals((rows + 9) / 10, skipped[0]);
+    }
+
+    // Ends every read right after a CR, so CR and LF of a CRLF arrive in separate reads
+    private static class CarriageReturnSplittingReader extends Reader {
+        private final String text;
+        private int position = 0;
+
+        CarriageReturnSplittingReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == text.length()) {
+                return -1;
+            }
+            int count = 0;
+            while (count < length && position < text.length()) {
+                char c = text.charAt(position++);
+                buffer[offset + count++] = c;
+                if (c == '\r') {
+                    break;
+                }
+            }
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.studentmanagement.utils;
+
+import com.example.studentmanagement.models.Student;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prefix and accent-folding lookups of StudentSearchIndex
+ */
+public class StudentSearchIndexTest {
+
+    private StudentSearchIndex index;
+
+    private static Student student(String id, String studentId, String name, String email, String className) {
+        Student student = new Student();
+        student.setId(id);
+        student.setStudentId(studentId);
+        student.setName(name);
+        student.setEmail(email);
+        student.setClassName(className);
+        return student;
+    }
+
+    private static List<String> ids(List<Student> students) {
+        List<String> ids = new ArrayList<>();
+        for (Student student : students) {
+            ids.add(student.getId());
+        }
+        return ids;
+    }
+
+    @Before
+    public void setUp() {
+        index = new StudentSearchIndex();
+        index.add(student("d1", "SV001", "Nguyễn Văn Hoàng", "hoang.nv@example.com", "CNTT1"));
+        index.add(student("d2", "SV002", "Trần Thị Hoa", "hoa.tt@example.com", "CNTT2"));
+        index.add(student("d3", "SV103", "Lê Đức Anh", "anh.ld@example.com", "KT1"));
+    }
+
+    @Test
+    public void matchesWordPrefixes() {
+        assertEquals(List.of("d1", "d2"), ids(index.search("ho")));
+        assertEquals(List.of("d1"), ids(index.search("hoang")));
+        assertEquals(List.of("d3"), ids(index.search("sv1")));
+    }
+
+    @Test
+    public void foldsAccentsAndCase() {
+        assertEquals(List.of("d1"), ids(index.search("HOÀNG")));
+        assertEquals(List.of("d1"), ids(index.search("nguyen van")));
+        assertEquals(List.of("d3"), ids(index.search("duc")));
+        assertEquals("le duc anh", StudentSearchIndex.normalize("  Lê Đức Anh "));
+    }
+
+    @Test
+    public void requiresEveryQueryWord() {
+        assertEquals(List.of("d2"), ids(index.search("ho tran")));
+        assertTrue(index.search("hoa le").isEmpty());
+    }
+
+    @Test
+    public void matchesWholeFieldValues() {
+        assertEquals(List.of("d2"), ids(index.search("hoa.tt@example.com")));
+        assertEquals(List.of("d1", "d2"), ids(index.search("cntt")));
+    }
+
+    @Test
+    public void reindexesUpdatedStudentsAndKeepsLoadOrder() {
+        index.update(student("d1", "SV001", "Phạm Minh", "minh.p@example.com", "CNTT1"));
+        assertTrue(index.search("hoang").isEmpty());
+        assertEquals(List.of("d1"), ids(index.search("minh")));
+        assertEquals(List.of("d1", "d2", "d3"), ids(index.all()));
+
+        index.remove("d2");
+        assertEquals(List.of("d1"), ids(index.search("cntt")));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    public void blankQueryReturnsEveryone() {
+        assertEquals(List.of("d1", "d2", "d3"), ids(index.search("  ")));
+    }
+}
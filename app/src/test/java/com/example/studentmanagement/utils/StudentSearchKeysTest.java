@@ -0,0 +1,66 @@
+package com.example.studentmanagement.utils;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Search keys stored on student documents and the prefix ranges queried on them
+ */
+public class StudentSearchKeysTest {
+
+    @Test
+    public void keyNormalizesLikeTheIndex() {
+        assertEquals("nguyen van hoang", StudentSearchKeys.key("  Nguyễn   Văn\tHoàng "));
+        assertEquals("dang", StudentSearchKeys.key("Đặng"));
+        assertEquals(StudentSearchIndex.normalize("SV001"), StudentSearchKeys.key("SV001"));
+    }
+
+    @Test
+    public void keyOfNullIsEmpty() {
+        assertEquals("", StudentSearchKeys.key(null));
+    }
+
+    @Test
+    public void rangeEndBoundsEveryKeyWithThePrefix() {
+        String prefix = StudentSearchKeys.key("Nguy");
+        String end = StudentSearchKeys.rangeEnd(prefix);
+
+        assertTrue(prefix.compareTo(end) < 0);
+        assertTrue(StudentSearchKeys.key("Nguyễn Văn A").compareTo(end) < 0);
+        assertTrue(StudentSearchKeys.key("nguyzzz").compareTo(end) < 0);
+        assertTrue(StudentSearchKeys.key("Nguz").compareTo(end) > 0);
+        assertTrue(StudentSearchKeys.key("Nguy").compareTo(prefix) >= 0);
+    }
+
+    @Test
+    public void putKeysOnlyCoversFieldsInTheWrite() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", "Trần Thị Hoa");
+        fields.put("email", null);
+        StudentSearchKeys.putKeys(fields);
+
+        assertEquals("tran thi hoa", fields.get(StudentSearchKeys.NAME));
+        assertEquals("", fields.get(StudentSearchKeys.EMAIL));
+        assertFalse(fields.containsKey(StudentSearchKeys.STUDENT_ID));
+    }
+
+    @Test
+    public void staleKeysListsMissingAndOutdatedKeys() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("name", "Lê Anh");
+        data.put("studentId", "SV003");
+        data.put("email", "anh@example.com");
+        data.put(StudentSearchKeys.NAME, "le anh");
+        data.put(StudentSearchKeys.STUDENT_ID, "sv002");
+
+        Map<String, Object> stale = StudentSearchKeys.staleKeys(data);
+        assertEquals(2, stale.size());
+        assertEquals("sv003", stale.get(StudentSearchKeys.STUDENT_ID));
+        assertEquals("anh@example.com", stale.get(StudentSearchKeys.EMAIL));
+        assertTrue(StudentSearchKeys.staleKeys(null).isEmpty());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.studentmanagement.utils;
+
+import com.example.studentmanagement.models.Student;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stability of the content hash imports compare stored students against
+ */
+public class StudentUpserterTest {
+
+    private static Student student() {
+        Student student = new Student();
+        student.setStudentId("SV001");
+        student.setName("Nguyễn Văn Hoàng");
+        student.setEmail("hoang.nv@example.com");
+        student.setPhoneNumber("0901234567");
+        student.setClassName("CNTT1");
+        student.setDateOfBirth("2001-01-01");
+        student.setAddress("12 Lê Lợi, Quận 1");
+        return student;
+    }
+
+    @Test
+    public void sameStudentHashesTheSame() {
+        long first = StudentUpserter.contentHash(BatchOperationsUtil.importedFields(student()));
+        long second = StudentUpserter.contentHash(BatchOperationsUtil.importedFields(student()));
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void storedHashMatchesTheStoredFields() {
+        Map<String, Object> fields = BatchOperationsUtil.importedFields(student());
+        assertEquals(StudentUpserter.contentHash(fields), ((Long) fields.get(StudentUpserter.CONTENT_HASH)).longValue());
+    }
+
+    @Test
+    public void ignoresFieldOrderAndFieldsNotImported() {
+        Map<String, Object> imported = BatchOperationsUtil.importedFields(student());
+
+        // A stored document: other fields, another map order, a stale stored hash
+        Map<String, Object> stored = new LinkedHashMap<>();
+        stored.put("certificates", "ignored");
+        stored.put("age", 23L);
+        stored.put(StudentUpserter.CONTENT_HASH, 42L);
+        for (String field : new String[]{"address", "searchEmail", "name", "studentId", "className",
+                "searchName", "email", "dateOfBirth", "searchStudentId", "phoneNumber"}) {
+            stored.put(field, imported.get(field));
+        }
+
+        assertEquals(StudentUpserter.contentHash(imported), StudentUpserter.contentHash(stored));
+    }
+
+    @Test
+    public void nullAndEmptyHashTheSame() {
+        Map<String, Object> withNull = BatchOperationsUtil.importedFields(student());
+        withNull.put("address", null);
+        Map<String, Object> withEmpty = BatchOperationsUtil.importedFields(student());
+        withEmpty.put("address", "");
+        Map<String, Object> missing = BatchOperationsUtil.importedFields(student());
+        missing.remove("address");
+
+        assertEquals(StudentUpserter.contentHash(withNull), StudentUpserter.contentHash(withEmpty));
+        assertEquals(StudentUpserter.contentHash(withNull), StudentUpserter.contentHash(missing));
+        assertEquals(StudentUpserter.contentHash(new HashMap<>()), StudentUpserter.contentHash(null));
+    }
+
+    @Test
+    public void anyImportedFieldChangesTheHash() {
+        long original = StudentUpserter.contentHash(BatchOperationsUtil.importedFields(student()));
+        for (String field : BatchOperationsUtil.IMPORTED_FIELDS) {
+            Map<String, Object> changed = BatchOperationsUtil.importedFields(student());
+            changed.put(field, changed.get(field) + "x");
+            assertNotEquals(field, original, StudentUpserter.contentHash(changed));
+        }
+    }
+
+    @Test
+    public void missingSearchKeysChangeTheHash() {
+        Map<String, Object> withoutKeys = BatchOperationsUtil.importedFields(student());
+        withoutKeys.remove(StudentSearchKeys.NAME);
+        assertNotEquals(StudentUpserter.contentHash(BatchOperationsUtil.importedFields(student())),
+                StudentUpserter.contentHash(withoutKeys));
+    }
+
+    @Test
+    public void fieldBoundariesAreHashed() {
+        Map<String, Object> first = new HashMap<>();
+        first.put("name", "ab");
+        first.put("studentId", "c");
+        Map<String, Object> second = new HashMap<>();
+        second.put("name", "a");
+        second.put("studentId", "bc");
+        assertNotEquals(StudentUpserter.contentHash(first), StudentUpserter.contentHash(second));
+    }
+
+    @Test
+    public void nonLatinCharactersAreHashedInFull() {
+        Map<String, Object> first = new HashMap<>();
+        first.put("name", "Hoàng");
+        Map<String, Object> second = new HashMap<>();
+        second.put("name", "Hoang");
+        assertNotEquals(StudentUpserter.contentHash(first), StudentUpserter.contentHash(second));
+    }
+}